@@ -1,13 +1,23 @@
 package org.backstamp.datapump;
 
 import java.io.File;
+import java.time.Duration;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Date;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
-import java.util.OptionalInt;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.Function;
 import java.util.function.Predicate;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
@@ -18,16 +28,33 @@ import org.backstamp.datapump.util.Reader;
 import org.backstamp.datapump.util.Value;
 
 public class DataPumpFile implements DataPumpFileReader {
+	private static final long CANCELLATION_TIMEOUT_SECONDS = 30L;
 
 	private Reader reader;
 	private Optional<List<?>> values;
 	private Map<MasterTableRow, Long> tableOffsets;
 
 	public DataPumpFile(File file) {
-		this.reader = new Reader.RandomAccessFileReader(file);
+		this(file, Reader.PositionalFileReader::new);
+	}
+
+	public DataPumpFile(File file, Function<File, ? extends Reader> readerFactory) {
+		this.reader = readerFactory.apply(file);
 		this.values = Optional.empty();
 	}
 
+	public static DataPumpFile withBufferedReader(File file, int numberOfBlocks) {
+		long blockSize;
+		try (Reader.RandomAccessFileReader reader = new Reader.RandomAccessFileReader(file)) {
+			// [VERSION][UNKNOWN][MASTER PRESENT][GUID][FILE NUMBER][BLOCK SIZE] ...
+			reader.skip(2 + 11 + 2 + 16 + 4);
+			blockSize = new BlockSize(reader).get();
+		} catch (Exception e) {
+			throw new RuntimeException(e);
+		}
+		return new DataPumpFile(file, f -> new Reader.BufferedFileReader(f, (int) blockSize, numberOfBlocks));
+	}
+
 	public String versionName() {
 		return FileVersion.class.cast(read().get(0)).description();
 	}
@@ -51,13 +78,71 @@ public class DataPumpFile implements DataPumpFileReader {
 	public DataPumpTable<MasterTableRow> masterTable() {
 		long blockSize = BlockSize.class.cast(read().get(5)).get();
 		long offset = MasterOffset.class.cast(read().get(9)).get();
-		return new DataPumpTable<>(reader, offset * blockSize, MasterTableRow.class);
+		return new DataPumpTable<>(reader, offset * blockSize, MasterTableRow::new);
 	}
 
 	public Stream<DataPumpTable<TableRow>> tables() {
 		return masterTableOffsets().entrySet().stream()
-				.mapToInt(i -> i.getValue().intValue())
-				.mapToObj(i -> new DataPumpTable<>(reader, i, TableRow.class));
+				.map(i -> new DataPumpTable<>(reader, i.getValue(), TableRow::new, i.getKey()));
+	}
+
+	public List<Extraction> extract(int numberOfThreads,
+		Function<DataPumpTable<TableRow>, Consumer<? super TableRow>> sinks) {
+		List<DataPumpTable<TableRow>> tables = tables().collect(Collectors.toList());
+		ExecutorService executor = Executors.newFixedThreadPool(numberOfThreads);
+		CompletionService<Extraction> completions = new ExecutorCompletionService<>(executor);
+		try {
+			List<Future<Extraction>> futures = new ArrayList<>();
+			for (DataPumpTable<TableRow> table : tables) {
+				futures.add(completions.submit(() -> {
+					long start = System.nanoTime();
+					Consumer<? super TableRow> sink = sinks.apply(table);
+					long rows = 0L;
+					for (TableRow row : table) {
+						// Stop once another table has failed and the executor is shut down.
+						if (Thread.currentThread().isInterrupted()) {
+							throw new InterruptedException(String.format(
+								"The extraction of table %s was cancelled.",
+								table.get().name()));
+						}
+						sink.accept(row);
+						rows++;
+					}
+					return new Extraction(table.get().name(), rows, System.nanoTime() - start);
+				}));
+			}
+			// Fail as soon as any table fails rather than after the tables before it finish.
+			for (int i = 0; i < futures.size(); i++) {
+				completions.take().get();
+			}
+			List<Extraction> extractions = new ArrayList<>();
+			for (Future<Extraction> future : futures) {
+				extractions.add(future.get());
+			}
+			return extractions;
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new RuntimeException(e);
+		} catch (ExecutionException e) {
+			Throwable cause = e.getCause();
+			if (cause instanceof RuntimeException) {
+				throw (RuntimeException) cause;
+			}
+			if (cause instanceof Error) {
+				throw (Error) cause;
+			}
+			throw new RuntimeException(cause);
+		} finally {
+			// Wait for the other tables to stop so that no sink sees a row after this returns.
+			// A sink that blocks must give up when interrupted; one that does not is left
+			// running once the wait times out rather than holding up the caller forever.
+			executor.shutdownNow();
+			try {
+				executor.awaitTermination(CANCELLATION_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+		}
 	}
 
 	public DataPumpTable<TableRow> tableWithName(String name) {
@@ -65,18 +150,20 @@ public class DataPumpFile implements DataPumpFileReader {
 	}
 
 	public DataPumpTable<TableRow> tableMatching(Predicate<MasterTableRow> predicate) {
-		OptionalInt optionalOffset = masterTableOffsets().entrySet().stream()
+		Optional<Map.Entry<MasterTableRow, Long>> optionalOffset = masterTableOffsets().entrySet().stream()
 				.filter(i -> predicate.test(i.getKey()))
-				.mapToInt(i -> i.getValue().intValue())
 				.findFirst();
 		if (!optionalOffset.isPresent()) {
 			throw new IllegalStateException(String.format("There is no table matching '%s'.", predicate));
 		}
-		return new DataPumpTable<>(reader, optionalOffset.getAsInt(), TableRow.class);
+		Map.Entry<MasterTableRow, Long> entry = optionalOffset.get();
+		return new DataPumpTable<>(reader, entry.getValue(), TableRow::new, entry.getKey());
 	}
 
-	private List<?> read() {
+	private synchronized List<?> read() {
 		if (!values.isPresent()) {
+			Reader reader = this.reader.cursor();
+			reader.seek(0);
 			List<Value<?>> order = Arrays.asList(
 					new FileVersion(reader),
 					new Unknown(reader, 11),
@@ -97,10 +184,10 @@ public class DataPumpFile implements DataPumpFileReader {
 		return values.get();
 	}
 
-	private Map<MasterTableRow, Long> masterTableOffsets() {
+	private synchronized Map<MasterTableRow, Long> masterTableOffsets() {
 		if (tableOffsets == null) {
-			tableOffsets = masterTable().rows()
-				.filter(row -> row.processOrder() > 0
+			tableOffsets = masterTable()
+				.rowsMatching(row -> row.processOrder() > 0
 					&& "SCHEMA_EXPORT/TABLE/TABLE_DATA".equals(row.objectTypePath()))
 				.collect(Collectors.groupingBy(MasterTableRow::processOrder, Collectors.toList()))
 				.entrySet()
@@ -114,4 +201,32 @@ public class DataPumpFile implements DataPumpFileReader {
 		}
 		return tableOffsets;
 	}
+
+	public static class Extraction {
+		private final String tableName;
+		private final long rows;
+		private final long elapsedNanos;
+
+		Extraction(String tableName, long rows, long elapsedNanos) {
+			this.tableName = tableName;
+			this.rows = rows;
+			this.elapsedNanos = elapsedNanos;
+		}
+
+		public String tableName() {
+			return tableName;
+		}
+
+		public long rows() {
+			return rows;
+		}
+
+		public Duration elapsed() {
+			return Duration.ofNanos(elapsedNanos);
+		}
+
+		public String toString() {
+			return String.format("%s: %d rows in %d ms", tableName, rows, elapsed().toMillis());
+		}
+	}
 }
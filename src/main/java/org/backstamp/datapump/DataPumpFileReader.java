@@ -1,7 +1,9 @@
 package org.backstamp.datapump;
 
+import java.nio.charset.Charset;
 import java.util.Calendar;
 import java.util.Date;
+import java.util.Optional;
 import java.util.TimeZone;
 import java.util.function.Predicate;
 import java.util.stream.Collectors;
@@ -88,7 +90,15 @@ public interface DataPumpFileReader {
 		}
 
 		public String description() {
-			switch (value().orElse(0)) {
+			return description(value().orElse(0));
+		}
+
+		public Optional<Charset> charset() {
+			return charset(value().orElse(0));
+		}
+
+		public static String description(int id) {
+			switch (id) {
 			case 1: return "ASCII"; // US7ASCII
 			case 2: return "WE8DEC";
 			case 3: return "WE8HP";
@@ -334,6 +344,59 @@ public interface DataPumpFileReader {
 			default: throw new RuntimeException("Unsupported character set");
 			}
 		}
+
+		// The Java character set for an Oracle character set ID, when there is one.
+		public static Optional<Charset> charset(int id) {
+			final String name;
+			try {
+				name = description(id);
+			} catch (RuntimeException e) {
+				return Optional.empty();
+			}
+			return charset(name);
+		}
+
+		// The Java character set for an Oracle character set name such as AL32UTF8, when there is one.
+		public static Optional<Charset> charset(String name) {
+			final String charset;
+			switch (name) {
+			case "ASCII": charset = "US-ASCII"; break;
+			case "AL32UTF8": charset = "UTF-8"; break;
+			case "UTF8": charset = "CESU-8"; break;
+			case "AL16UTF16": charset = "UTF-16BE"; break;
+			case "AL16UTF16LE": charset = "UTF-16LE"; break;
+			case "WE8ISO8859P1": charset = "ISO-8859-1"; break;
+			case "EE8ISO8859P2": charset = "ISO-8859-2"; break;
+			case "CL8ISO8859P5": charset = "ISO-8859-5"; break;
+			case "EL8ISO8859P7": charset = "ISO-8859-7"; break;
+			case "WE8ISO8859P15": charset = "ISO-8859-15"; break;
+			case "EE8MSWIN1250": charset = "windows-1250"; break;
+			case "CL8MSWIN1251": charset = "windows-1251"; break;
+			case "WE8MSWIN1252": charset = "windows-1252"; break;
+			case "EL8MSWIN1253": charset = "windows-1253"; break;
+			case "TR8MSWIN1254": charset = "windows-1254"; break;
+			case "IW8MSWIN1255": charset = "windows-1255"; break;
+			case "AR8MSWIN1256": charset = "windows-1256"; break;
+			case "BLT8MSWIN1257": charset = "windows-1257"; break;
+			case "VN8MSWIN1258": charset = "windows-1258"; break;
+			case "US8PC437": charset = "IBM437"; break;
+			case "WE8PC850": charset = "IBM850"; break;
+			case "WE8EBCDIC37": charset = "IBM037"; break;
+			case "WE8EBCDIC500": charset = "IBM500"; break;
+			case "JA16SJIS": charset = "Shift_JIS"; break;
+			case "JA16EUC": charset = "EUC-JP"; break;
+			case "KO16KSC5601": charset = "EUC-KR"; break;
+			case "KO16MSWIN949": charset = "x-windows-949"; break;
+			case "ZHS16GBK": charset = "GBK"; break;
+			case "ZHS32GB18030": charset = "GB18030"; break;
+			case "ZHT16BIG5": charset = "Big5"; break;
+			case "ZHT16MSWIN950": charset = "x-windows-950"; break;
+			case "ZHT16HKSCS": charset = "Big5-HKSCS"; break;
+			case "TH8TISASCII": charset = "TIS-620"; break;
+			default: return Optional.empty();
+			}
+			return Charset.isSupported(charset) ? Optional.of(Charset.forName(charset)) : Optional.empty();
+		}
 	}
 
 	public class CreationDate extends Once<Date> {
@@ -2,36 +2,65 @@ package org.backstamp.datapump;
 
 import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
+import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
-import java.lang.reflect.Constructor;
-import java.util.Arrays;
+import java.io.Serializable;
+import java.nio.charset.Charset;
 import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
 import java.util.Optional;
 import java.util.Spliterator;
 import java.util.Spliterators;
-import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
 import java.util.function.Predicate;
-import java.util.stream.IntStream;
 import java.util.stream.Stream;
 import java.util.stream.StreamSupport;
 
 import javax.xml.stream.XMLStreamException;
 
+import org.backstamp.datapump.DataPumpFileReader.CharacterSet;
+import org.backstamp.datapump.DataPumpFileReader.GUID;
+import org.backstamp.datapump.io.LobStore;
+import org.backstamp.datapump.row.FieldPredicate;
+import org.backstamp.datapump.row.Lob;
+import org.backstamp.datapump.row.MasterTableRow;
+import org.backstamp.datapump.row.RowBatch;
+import org.backstamp.datapump.row.RowCursor;
+import org.backstamp.datapump.row.RowCursor.Position;
+import org.backstamp.datapump.row.RowCursor.TableCursor;
+import org.backstamp.datapump.row.RowFactory;
+import org.backstamp.datapump.row.RowIndex;
 import org.backstamp.datapump.row.TableRow;
 import org.backstamp.datapump.table.ColumnDefinition;
+import org.backstamp.datapump.table.ColumnDefinition.StringColumn;
 import org.backstamp.datapump.table.TableDefinition.Table;
-import org.backstamp.datapump.util.ArrayCombination.ByteArrays;
 import org.backstamp.datapump.util.Reader;
 import org.backstamp.datapump.util.Value.Once;
 import org.backstamp.datapump.xml.XMLStreamCursor;
 
 public class DataPumpTable<T extends TableRow> extends Once<Table> implements Iterable<T> {
 	private Reader reader;
-	private Class<T> type;
+	private long offset;
+	private RowFactory<T> factory;
+	private Optional<MasterTableRow> masterRow;
+	private volatile RowIndex index;
+	private volatile String guid;
+	private volatile int[] interned;
 	
-	public DataPumpTable(Reader reader, long offset, Class<T> type) {
+	@Deprecated
+	public DataPumpTable(Reader source, long offset, Class<T> type) {
+		this(source, offset, RowFactory.of(type));
+	}
+
+	public DataPumpTable(Reader source, long offset, RowFactory<T> factory) {
+		this(source, offset, factory, null);
+	}
+
+	public DataPumpTable(Reader source, long offset, RowFactory<T> factory, MasterTableRow masterRow) {
 		super(() -> {
+			Reader reader = source.cursor();
 			ByteArrayOutputStream baos = new ByteArrayOutputStream();
 			reader.seek(offset - 4096);
 
@@ -41,216 +70,644 @@ public class DataPumpTable<T extends TableRow> extends Once<Table> implements It
 			reader.skip(6); // 0xffff24240a00
 			long xmlLength = reader.read8();
 			
+			reader.seek(offset);
+			String encoding = CharacterSet.charset(reader.read2()).map(Charset::name).orElse(null);
 			try {
-				// TODO: Character sets other than the platform default.
-				reader.seek(offset + 2); // Skip two bytes containing character set ID.
 				baos.write(reader.read(xmlLength - 2));
 			} catch (IOException e) {
 				throw new RuntimeException(e);
 			}
 
-			// Align to the next eight-byte boundary; same as (8 - (offset + xmlLength % 8)) % 8.
-			long byteAlignment = -(offset + xmlLength) & (8 - 1); 
-			reader.skip(byteAlignment);
-
 			byte[] xml = baos.toByteArray();
 			try (InputStream inputStream = new ByteArrayInputStream(xml)) {
-				Optional<Table> document = new XMLStreamCursor.DocumentCursor().apply(inputStream);
+				Optional<Table> document = new XMLStreamCursor.DocumentCursor()
+					.apply(inputStream, encoding);
 				return document.get();
 			} catch (IOException | XMLStreamException e) {
 				throw new RuntimeException(e);
 			}
 		});
-		this.reader = reader;
-		this.type = type;
+		this.reader = source;
+		this.offset = offset;
+		this.factory = factory;
+		this.masterRow = Optional.ofNullable(masterRow);
+	}
+
+	public Optional<MasterTableRow> masterRow() {
+		return masterRow;
+	}
+
+	private void seekToData(Reader reader) {
+		reader.seek(offset - 4096 + 6);
+		long xmlLength = reader.read8();
+
+		// Align to the next eight-byte boundary; same as (8 - (offset + xmlLength % 8)) % 8.
+		long byteAlignment = -(offset + xmlLength) & (8 - 1); 
+		reader.seek(offset + xmlLength + byteAlignment);
 	}
 
 	/* (non-Javadoc)
 	 * @see java.lang.Iterable#iterator()
 	 */
-	public Iterator<T> iterator() {
-		final Class<T> clazz = this.type;
-		
+	public ResumableIterator<T> iterator() {
 		Optional<Table> document = value();
 		if (!document.isPresent()) {
-			return new Iterator<T>() {
+			return new ResumableIterator<T>() {
 				public boolean hasNext() { return false; }
-				public T next() { throw new IllegalStateException(); }
+				public T next() { throw new NoSuchElementException(); }
+				public Checkpoint checkpoint() { return new Checkpoint(guid(), offset, null, 0L); }
 			};
 		}
-		final Table table = document.get();
+		return new RowIterator(newCursor(document.get()));
+	}
+
+	/**
+	 * Returns an iterator over the rows of this table that carries on from where
+	 * the iterator that took the given checkpoint was, without reading the rows before it.
+	 */
+	public ResumableIterator<T> iterator(Checkpoint checkpoint) {
+		if (!checkpoint.guid.equals(guid())) {
+			throw new IllegalArgumentException(String.format(
+				"The checkpoint is for the dump %s, not %s.",
+				checkpoint.guid,
+				guid()));
+		}
+		if (checkpoint.tableOffset != offset) {
+			throw new IllegalArgumentException(String.format(
+				"The checkpoint is for the table at offset %d, not %d.",
+				checkpoint.tableOffset,
+				offset));
+		}
+		if (checkpoint.position == null) {
+			// Only an iterator over a table without rows has no position to carry on from.
+			if (checkpoint.rows != 0L) {
+				throw new IllegalArgumentException(String.format(
+					"The checkpoint after %d rows has no position.",
+					checkpoint.rows));
+			}
+			return iterator();
+		}
+		TableCursor cursor = newCursor(get(), checkpoint.position);
+		return new RowIterator(cursor, false, null, checkpoint.rows);
+	}
+
+	/**
+	 * Returns a cursor over the rows of this table that reads each row into reused
+	 * buffers rather than creating a row object for it.
+	 */
+	public RowCursor cursor() {
+		return newCursor(get());
+	}
+
+	/**
+	 * Returns a cursor that reads only the named columns; the others are skipped
+	 * without being copied or decoded and read as NULL.
+	 */
+	public RowCursor cursor(String... columns) {
+		return newCursor(get()).project(columns);
+	}
+
+	/**
+	 * Shares one String among the equal values of each named column, remembering
+	 * up to the given number of distinct values per column; suited to columns such
+	 * as status or type codes that repeat a handful of values over many rows.
+	 * Each cursor started from here on keeps dictionaries of its own.
+	 */
+	public DataPumpTable<T> intern(int capacity, String... columns) {
+		if (capacity < 0) {
+			throw new IllegalArgumentException(String.format(
+				"The dictionary size %d is negative.",
+				capacity));
+		}
+		Table table = get();
+		int[] interned = this.interned == null
+			? new int[table.columns().size()]
+			: this.interned.clone();
+		for (String column : columns) {
+			int index = table.requireIndexOf(column);
+			if (!(table.columns().get(index) instanceof StringColumn)) {
+				throw new IllegalArgumentException(String.format(
+					"The column %s of table %s is not a string.",
+					column,
+					table.name()));
+			}
+			interned[index] = capacity;
+		}
+		this.interned = interned;
+		return this;
+	}
+
+	/**
+	 * Returns a cursor that starts at the given row, from the nearest row boundary
+	 * in this table's index when it has one.
+	 */
+	public RowCursor cursor(long row) {
+		return cursorAt(row);
+	}
+
+	// Rows before the given one are skipped with a seek each when they record their length.
+	private TableCursor cursorAt(long row) {
+		RowIndex index = this.index;
+		TableCursor cursor;
+		long skipped = 0L;
+		if (index == null || index.size() == 0) {
+			cursor = newCursor(get());
+		} else {
+			int i = index.indexOf(row);
+			cursor = newCursor(get(), index.position(i));
+			skipped = index.rowsBefore(i);
+		}
+		for (; skipped < row && cursor.hasNext(); skipped++) {
+			cursor.skip();
+		}
+		return cursor;
+	}
+
+	/**
+	 * Builds an index of this table in one pass over it, keeping the boundary of
+	 * every stride-th row.
+	 */
+	public RowIndex buildIndex(long stride) {
+		return new RowIndex(newCursor(get()), stride);
+	}
+
+	// Starts cursors and splits rows from the boundaries in the given index of this table.
+	public DataPumpTable<T> indexed(RowIndex index) {
+		this.index = index;
+		return this;
+	}
+
+	/**
+	 * Uses the index of this table saved in the given directory under the GUID of
+	 * the dump and the offset of the table, building and saving it first when there
+	 * is none with the given stride.
+	 */
+	public DataPumpTable<T> indexed(File directory, long stride) {
+		String guid = guid();
+		File file = new File(directory, String.format("%s-%d.idx", guid, offset));
+		Optional<RowIndex> saved = RowIndex.load(file, guid, offset, stride);
+		if (saved.isPresent()) {
+			return indexed(saved.get());
+		}
+		RowIndex index = buildIndex(stride);
+		index.save(file, guid, offset);
+		return indexed(index);
+	}
 
-		final ColumnDefinition[] columns = table.columns().toArray(new ColumnDefinition[] {});
-		int[] lobColumns = IntStream.range(0, columns.length).filter(i -> columns[i].isLob()).toArray();
-		boolean hasLob = lobColumns.length > 0;
-		final Object[] row = new Object[columns.length];
+	private String guid() {
+		String guid = this.guid;
+		if (guid == null) {
+			// [VERSION][UNKNOWN][MASTER PRESENT][GUID] ...
+			Reader reader = this.reader.cursor();
+			reader.seek(2 + 11 + 2);
+			guid = new GUID(reader).get();
+			this.guid = guid;
+		}
+		return guid;
+	}
+
+	private TableCursor newCursor(Table table) {
+		Reader reader = this.reader.cursor();
+		seekToData(reader);
+		return interned(new TableCursor(reader, table));
+	}
+
+	private TableCursor newCursor(Table table, Position position) {
+		return interned(new TableCursor(reader.cursor(), table, position));
+	}
 
-		AtomicInteger rowFlag = new AtomicInteger(0);
-		rowFlag.set(reader.read1());
-		if (rowFlag.get() == 0x3c) {
-			reader.read2(); // Row length.
+	// Gives the cursor a dictionary of its own for each interned column.
+	private TableCursor interned(TableCursor cursor) {
+		int[] capacities = this.interned;
+		for (int i = 0; capacities != null && i < capacities.length; i++) {
+			if (capacities[i] > 0) {
+				cursor.intern(i, capacities[i]);
+			}
+		}
+		return cursor;
+	}
+
+	/**
+	 * Counts the rows of this table by walking their headers without reading or
+	 * decoding any field. The count may differ from recordedRows() when the dump
+	 * was written while the table changed or the master table is wrong.
+	 */
+	public long count() {
+		RowIndex index = this.index;
+		if (index != null) {
+			return index.rows();
 		}
+		long rows = 0L;
+		TableCursor cursor = newCursor(get());
+		for (; cursor.hasNext(); rows++) {
+			cursor.skip();
+		}
+		return rows;
+	}
 
-		final AtomicInteger numberOfColumns = new AtomicInteger(reader.read1());
+	// The number of rows the master table records for this table, if any.
+	public Optional<Long> recordedRows() {
+		return masterRow
+			.filter(MasterTableRow::hasCompletedRows)
+			.map(MasterTableRow::completedRows);
+	}
 
-		return new Iterator<T>() {
-			boolean hasNext = document.isPresent();
+	/**
+	 * Returns the rows of this table in batches of up to the given size, held column
+	 * by column rather than row by row.
+	 */
+	public Stream<RowBatch> batches(int batchSize) {
+		TableCursor cursor = newCursor(get());
+		Iterator<RowBatch> iterator = new Iterator<RowBatch>() {
+			private RowBatch batch = new RowBatch(cursor.table(), batchSize);
 
-			@Override
 			public boolean hasNext() {
-				return hasNext;
+				return cursor.hasNext();
 			}
 
-			@Override
-			public T next() {
-				Arrays.fill(row, null);
+			public RowBatch next() {
+				RowBatch next = batch;
+				if (!next.fill(cursor)) {
+					throw new NoSuchElementException(String.format(
+						"The table %s has no more rows.",
+						cursor.table().name()));
+				}
+				batch = new RowBatch(cursor.table(), batchSize);
+				return next;
+			}
+		};
+		return StreamSupport.stream(Spliterators.spliteratorUnknownSize(
+			iterator,
+			Spliterator.ORDERED | Spliterator.NONNULL), false);
+	}
 
-				for (int column = 0; column < Math.min(row.length, numberOfColumns.get()); column++) {
-					int size = reader.read1();
+	public Stream<T> rows() {
+		return StreamSupport.stream(new RowSpliterator(null, false, null, null), false);
+	}
 
-					// LOBs often extend into one or more adjoining rows
-					// unless indicated as inline with the 0xfe header.
-					if (columns[column].isLob()
-						&& size != 0xfe) {
-						column++;
-						numberOfColumns.incrementAndGet();
-					}
-				
-					switch (size) {
-					case 0x00:
-						assert false;
-						break;
-					case 0xff: // NULL column value
-						break;
-					case 0xfe:
-						int length = reader.read2();
-						byte[] lob = reader.read(length);
-						row[column] = columns[column].decode(lob);
-						break;
-					default:
-						byte[] bytes = reader.read(size);
-						row[column] = columns[column].decode(bytes);
-						break;
-					}
+	/**
+	 * Returns at most the given number of rows of this table, starting at the given
+	 * row. The rows before it are passed over without reading their fields, with a
+	 * single seek for each row that records its length.
+	 */
+	public Stream<T> rows(long offset, long limit) {
+		if (offset < 0 || limit < 0) {
+			throw new IllegalArgumentException(String.format(
+				"The range of %d rows at row %d is negative.",
+				limit,
+				offset));
+		}
+		RowIterator iterator = new RowIterator(cursorAt(offset));
+		return StreamSupport.stream(Spliterators.spliteratorUnknownSize(
+			iterator,
+			Spliterator.ORDERED | Spliterator.NONNULL), false)
+			.limit(limit);
+	}
+
+	/**
+	 * Returns the rows of this table with their LOBs held by the given store, which
+	 * keeps them on the heap while they fit its budget and spills the rest to disk;
+	 * the rows' LOBs can be read only until the store is closed.
+	 */
+	public Stream<T> rows(LobStore lobs) {
+		return StreamSupport.stream(new RowSpliterator(null, false, null, lobs), false);
+	}
+
+	/**
+	 * Returns the rows of this table with each field kept in its encoded form
+	 * until it is first read, so that columns never looked at are never decoded.
+	 * LOBs are left in the file until they are read, so the file must stay open.
+	 */
+	public Stream<T> lazyRows() {
+		return StreamSupport.stream(new RowSpliterator(null, true, null, null), false);
+	}
+
+	/**
+	 * Returns the rows of this table with only the named columns decoded; the
+	 * others are skipped without being read and are NULL in each row.
+	 */
+	public Stream<T> rows(String... columns) {
+		boolean[] projection = TableCursor.projection(get(), columns);
+		return StreamSupport.stream(new RowSpliterator(projection, false, null, null), false);
+	}
+
+	/**
+	 * Returns the rows of this table whose fields pass every one of the given tests,
+	 * which compare the encoded fields so that rows are decoded only when they match.
+	 */
+	public Stream<T> rowsWhere(FieldPredicate... predicates) {
+		Predicate<RowCursor> filter = FieldPredicate.all(get(), predicates);
+		return StreamSupport.stream(new RowSpliterator(null, false, filter, null), false);
+	}
+
+	/**
+	 * Returns the rows of this table that pass the given test. Each row is tested
+	 * with its fields still encoded, so only the fields the test reads are decoded
+	 * for the rows it rejects. The rows it passes have their LOBs read whole, as
+	 * with rows(), so they stay readable once the file is closed.
+	 */
+	public Stream<T> rowsMatching(Predicate<T> predicate) {
+		return StreamSupport.stream(new RowSpliterator(predicate), false);
+	}
+
+	/**
+	 * An iterator over the rows of a table that can mark where it is, so that a
+	 * later iterator, perhaps in another process, can carry on from there.
+	 */
+	public interface ResumableIterator<T> extends Iterator<T> {
+
+		// Marks the boundary before the row that next() would return.
+		public Checkpoint checkpoint();
+	}
+
+	/**
+	 * The state of an iterator between two rows: the GUID of its dump, the offset
+	 * of its table, the position of the next row and the number of rows returned
+	 * before it. Rows
+	 * and the LOBs continued across them are read whole, so no LOB is ever part
+	 * read at a boundary; the position keeps the row flag that follows it.
+	 */
+	public static final class Checkpoint implements Serializable {
+		private static final long serialVersionUID = 2L;
+
+		private final String guid;
+		private final long tableOffset;
+		private final Position position;
+		private final long rows;
+
+		private Checkpoint(String guid, long tableOffset, Position position, long rows) {
+			this.guid = guid;
+			this.tableOffset = tableOffset;
+			this.position = position;
+			this.rows = rows;
+		}
+
+		public String guid() {
+			return guid;
+		}
+
+		// The offset to open the table at again, as with DataPumpTable(Reader, long, RowFactory).
+		public long tableOffset() {
+			return tableOffset;
+		}
+
+		public long rows() {
+			return rows;
+		}
+	}
+
+	private class RowIterator implements ResumableIterator<T> {
+		private final TableCursor cursor;
+		private final boolean lazy;
+		private final LobStore lobs;
+		private long rows;
+		private Object[] fields;
+
+		RowIterator(TableCursor cursor) {
+			this(cursor, false, null, 0L);
+		}
+
+		RowIterator(TableCursor cursor, boolean lazy, LobStore lobs, long rows) {
+			this.cursor = cursor;
+			this.lazy = lazy;
+			this.lobs = lobs;
+			this.rows = rows;
+		}
+
+		@Override
+		public boolean hasNext() {
+			return cursor.hasNext();
+		}
+
+		@Override
+		public T next() {
+			if (!cursor.next()) {
+				throw new NoSuchElementException(String.format(
+					"The table %s has no more rows.",
+					cursor.table().name()));
+			}
+			rows++;
+			return current();
+		}
+
+		@Override
+		public Checkpoint checkpoint() {
+			return new Checkpoint(guid(), offset, cursor.position(), rows);
+		}
+
+		// Creates a row from the one the cursor is on.
+		T current() {
+			List<ColumnDefinition> columns = cursor.table().columns();
+			Object[] row = new Object[columns.size()];
+			fields = row;
+			for (int i = 0; i < row.length; i++) {
+				if (cursor.isNull(i)) {
+					continue;
+				} else if (lobs != null && columns.get(i).isLob()) {
+					row[i] = lobs.store(cursor.lob(i));
+				} else if (!lazy) {
+					row[i] = cursor.getObject(i);
+				} else if (columns.get(i).isLob()) {
+					row[i] = cursor.lob(i);
+				} else {
+					row[i] = new TableRow.Encoded(cursor.getBytes(i));
 				}
-				rowFlag.set(reader.read1());
-
-				switch (rowFlag.get()) {
-				case 0x3c:
-					reader.read2(); // Row length.
-					break;
-				default:
-					break;
+			}
+			return factory.create(row, cursor.table());
+		}
+
+		// Creates the row the cursor is on again from the fields of the last one, with its LOBs read whole.
+		T detached() {
+			for (int i = 0; i < fields.length; i++) {
+				if (fields[i] instanceof Lob) {
+					fields[i] = cursor.getBytes(i);
 				}
+			}
+			return factory.create(fields, cursor.table());
+		}
+	}
 
-				// Handle LOB (BLOB, CLOB) column rows.
-				// TODO: This code has a lot of confusing temporal cohesion.
-				// An improved version could consume the Reader and collect
-				// encoded rows to coalesce into a single result.
-				if (hasLob
-					&& acceptLob(rowFlag.get())) {
-					int[] rowLobColumns = lobColumns.clone();
-
-					int numberOfColumns = reader.read1();
-					if (numberOfColumns > rowLobColumns.length) {
-						// HACK: Consume and discard row.
-						// TODO: This should be consumed using normal rules.
-						for (int column = 0; column < numberOfColumns; column++) {
-							reader.read1();
-						}
-						rowFlag.set(reader.read1());
-						numberOfColumns = reader.read1();
-					}
+	private class RowSpliterator implements Spliterator<T> {
+		private static final int BATCH_UNIT = 256;
+		private static final int MAXIMUM_BATCH = 1 << 20;
+
+		private final RowIndex index;
+		private int from;
+		private int to;
+		private final boolean[] projection;
+		private final boolean lazy;
+		private final Predicate<RowCursor> filter;
+		private final LobStore lobs;
+		private final Predicate<T> predicate;
+		private final Position start;
+		private TableCursor cursor;
+		private RowIterator iterator;
+		private long remaining;
+		private final boolean bounded;
+		private int batch;
+
+		// Only the table's index sizes the spliterator; the master table's row count is an estimate.
+		RowSpliterator(boolean[] projection, boolean lazy, Predicate<RowCursor> filter, LobStore lobs) {
+			this(projection, lazy, filter, lobs, null);
+		}
+
+		// Tests lazy rows and returns the ones that pass with their LOBs read.
+		RowSpliterator(Predicate<T> predicate) {
+			this(null, true, null, null, predicate);
+		}
+
+		private RowSpliterator(
+			boolean[] projection,
+			boolean lazy,
+			Predicate<RowCursor> filter,
+			LobStore lobs,
+			Predicate<T> predicate) {
+			this.projection = projection;
+			this.lazy = lazy;
+			this.filter = filter;
+			this.lobs = lobs;
+			this.predicate = predicate;
+			this.index = DataPumpTable.this.index;
+			this.start = null;
+			if (index != null) {
+				this.to = index.size();
+				this.remaining = index.rows();
+				this.bounded = true;
+			} else {
+				this.remaining = recordedRows().orElse(-1L);
+				this.bounded = false;
+			}
+		}
+
+		private RowSpliterator(RowSpliterator parent, int from, int to) {
+			this.projection = parent.projection;
+			this.lazy = parent.lazy;
+			this.filter = parent.filter;
+			this.lobs = parent.lobs;
+			this.predicate = parent.predicate;
+			this.index = parent.index;
+			this.start = null;
+			this.from = from;
+			this.to = to;
+			this.remaining = index.rowsBefore(to) - index.rowsBefore(from);
+			this.bounded = true;
+		}
 
-					// Combine LOBs that span multiple rows into the
-					// existing array containing its decoded data.
-					int i = 0;
-					boolean shouldContinue = numberOfColumns > 0;
-					while (shouldContinue) {
-						int column = rowLobColumns[i];
-						int size = reader.read1();
-						switch (size) {
-							case 0xff:
-								break;
-							case 0xfe:
-								int length = reader.read2();
-								byte[] newLob = (byte[]) columns[column].decode(
-									reader.read(length));
-								if ((rowFlag.get() == 0x06
-									|| rowFlag.get() == 0x03)
-									&& row[column] != null) {
-									ByteArrays arrays = new ByteArrays(
-										(byte[]) row[column],
-										newLob);
-									row[column] = arrays.toArray();
-								} else {
-									row[column] = newLob;
-								}
-
-							default:
-								break;
-						}
-						rowFlag.set(reader.read1());
-						if (rowFlag.get() == 0x01
-							|| rowFlag.get() == 0x04) {
-							// Advance if we have the start of a new LOB or a new complete LOB.
-							i++;
-						} else if (!acceptLob(rowFlag.get())) {
-							break;
-						}
-						if (i >= Math.min(numberOfColumns, rowLobColumns.length)) {
-							if (acceptLob(rowFlag.get())) {
-								if (rowLobColumns.length == 1) {
-									break;
-								} else {
-									rowLobColumns = Arrays.copyOfRange(
-										rowLobColumns,
-										1,
-										rowLobColumns.length);
-									i = 0;
-								}
-							} else {
-								break;
-							}
-						}
-						numberOfColumns = reader.read1();
+		// The given number of rows from a row boundary that a split walked past.
+		private RowSpliterator(RowSpliterator parent, Position start, long rows) {
+			this.projection = parent.projection;
+			this.lazy = parent.lazy;
+			this.filter = parent.filter;
+			this.lobs = parent.lobs;
+			this.predicate = parent.predicate;
+			this.index = null;
+			this.start = start;
+			this.remaining = rows;
+			this.bounded = true;
+		}
+
+		@Override
+		public boolean tryAdvance(Consumer<? super T> action) {
+			if (iterator == null) {
+				if (cursor == null) {
+					Optional<Table> document = value();
+					if (!document.isPresent()) {
+						return false;
+					}
+					if (start != null) {
+						cursor = newCursor(document.get(), start);
+					} else if (index != null && index.size() > 0) {
+						cursor = newCursor(document.get(), index.position(from));
+					} else {
+						cursor = newCursor(document.get());
 					}
 				}
+				iterator = new RowIterator(cursor.project(projection), lazy, lobs, 0L);
+			}
+			while (true) {
+				if (bounded && remaining == 0) {
+					return false;
+				}
+				if (!iterator.hasNext()) {
+					return false;
+				}
+				if (remaining > 0) {
+					remaining--;
+				}
+				iterator.cursor.next();
+				if (filter != null && !filter.test(iterator.cursor)) {
+					continue;
+				}
+				T row = iterator.current();
+				if (predicate == null) {
+					action.accept(row);
+					return true;
+				}
+				if (predicate.test(row)) {
+					action.accept(iterator.detached());
+					return true;
+				}
+			}
+		}
 
-				numberOfColumns.set(reader.read1());
-				hasNext = (numberOfColumns.get() != 0x00);
-
-				T current;
-				try {
-					Constructor<T> ctor = clazz.getConstructor(row.getClass(), table.getClass());
-					current = ctor.newInstance(Arrays.copyOf(row, row.length), table);
-				} catch (Exception e) {
-					throw new RuntimeException(e);
+		@Override
+		public Spliterator<T> trySplit() {
+			if (iterator != null) {
+				return null;
+			}
+			if (index != null) {
+				int middle = (from + to) >>> 1;
+				if (middle == from) {
+					return null;
 				}
-				return current;
+				RowSpliterator prefix = new RowSpliterator(this, from, middle);
+				from = middle;
+				remaining = index.rowsBefore(to) - index.rowsBefore(from);
+				return prefix;
+			}
+			if (bounded) {
+				return null;
 			}
 
-			private boolean acceptLob(int rowFlag) {
-				switch (rowFlag) {
-					case 0x04: // Complete LOB.
-					case 0x01: // Start of a multi-row LOB.
-					case 0x03: // Middle of a multi-row LOB.
-					case 0x06: // Last of a multi-row LOB.
-					case 0x00: // Empty
-						return true;
-					default:
-						return false;
+			// Without an index, split off a batch of rows by walking their headers, in batches
+			// that grow with each split so that the rest of the table is only walked on demand.
+			if (cursor == null) {
+				Optional<Table> document = value();
+				if (!document.isPresent()) {
+					return null;
 				}
+				cursor = newCursor(document.get());
 			}
-		};
-	}
+			Position position = cursor.position();
+			batch = Math.min(batch + BATCH_UNIT, MAXIMUM_BATCH);
+			long rows = 0L;
+			for (; rows < batch && cursor.hasNext(); rows++) {
+				cursor.skip();
+			}
+			if (rows == 0) {
+				return null;
+			}
+			if (remaining > 0) {
+				remaining = Math.max(0L, remaining - rows);
+			}
+			return new RowSpliterator(this, position, rows);
+		}
 
-	public Stream<T> rows() {
-		return rowsMatching(row -> true);
-	}
+		// Filtered rows are at most as many as the rows left.
+		@Override
+		public long estimateSize() {
+			return remaining >= 0 ? remaining : Long.MAX_VALUE;
+		}
 
-	public Stream<T> rowsMatching(Predicate<T> predicate) {
-		Spliterator<T> s = Spliterators.spliteratorUnknownSize(iterator(), 0);
-		return StreamSupport.stream(s, false).filter(predicate);
+		@Override
+		public int characteristics() {
+			return isSized()
+				? Spliterator.ORDERED | Spliterator.NONNULL | Spliterator.SIZED | Spliterator.SUBSIZED
+				: Spliterator.ORDERED | Spliterator.NONNULL;
+		}
+
+		private boolean isSized() {
+			return filter == null && predicate == null && bounded;
+		}
 	}
 }
@@ -0,0 +1,122 @@
+package org.backstamp.datapump.io;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+
+import org.backstamp.datapump.row.Lob;
+import org.backstamp.datapump.util.Reader;
+
+/**
+ * Holds the LOBs of a scan. LOBs up to a threshold are kept on the heap until
+ * they would take more than the scan's memory budget; the others are written to
+ * a temporary file that is deleted when the store is closed.
+ */
+public class LobStore implements AutoCloseable {
+	private static final int BUFFER_SIZE = 65536;
+	// Spilled LOBs are read back in chunks, whose lengths are ints.
+	private static final int MAXIMUM_CHUNK = 1 << 30;
+
+	private final long budget;
+	private final int threshold;
+	private long stored;
+	private long released;
+	private long spilled;
+	private TemporaryFile temporaryFile;
+	private FileChannel channel;
+	private Reader.PositionalFileReader reader;
+
+	public LobStore(long budget, int threshold) {
+		if (budget < 0 || threshold < 0) {
+			throw new IllegalArgumentException(String.format(
+				"The budget of %d bytes for LOBs of up to %d bytes is negative.",
+				budget,
+				threshold));
+		}
+		this.budget = budget;
+		this.threshold = threshold;
+	}
+
+	// Returns a LOB with the same bytes, either on the heap or in the temporary file.
+	public synchronized Lob store(Lob lob) {
+		long length = lob.length();
+		if (length <= threshold && held() + length <= budget) {
+			stored += length;
+			return new Lob.Bytes(lob.toArray());
+		}
+		try {
+			return spill(lob);
+		} catch (IOException e) {
+			throw new RuntimeException(e);
+		}
+	}
+
+	// Marks the LOBs kept on the heap so far, for release(long) once they are no longer in use.
+	public synchronized long mark() {
+		return stored;
+	}
+
+	// Stops counting the LOBs kept on the heap before the given mark against the budget.
+	public synchronized void release(long mark) {
+		if (mark > stored) {
+			throw new IllegalArgumentException(String.format(
+				"The mark %d is past the %d bytes of LOBs kept on the heap.",
+				mark,
+				stored));
+		}
+		released = Math.max(released, mark);
+	}
+
+	// The number of bytes of LOBs kept on the heap and not yet released.
+	public synchronized long held() {
+		return stored - released;
+	}
+
+	// The number of bytes of LOBs written to the temporary file.
+	public synchronized long spilled() {
+		return spilled;
+	}
+
+	private Lob spill(Lob lob) throws IOException {
+		if (temporaryFile == null) {
+			temporaryFile = new TemporaryFile();
+			File file = temporaryFile.toFile();
+			channel = FileChannel.open(file.toPath(), StandardOpenOption.WRITE);
+			reader = new Reader.PositionalFileReader(file);
+		}
+		long offset = spilled;
+		byte[] buffer = new byte[(int) Math.min(BUFFER_SIZE, Math.max(1, lob.length()))];
+		try (InputStream stream = lob.stream()) {
+			int numberOfBytes;
+			while ((numberOfBytes = stream.read(buffer)) >= 0) {
+				ByteBuffer bytes = ByteBuffer.wrap(buffer, 0, numberOfBytes);
+				while (bytes.hasRemaining()) {
+					spilled += channel.write(bytes, spilled);
+				}
+			}
+		}
+		long length = spilled - offset;
+		int count = (int) ((length + MAXIMUM_CHUNK - 1) / MAXIMUM_CHUNK);
+		long[] offsets = new long[count];
+		int[] lengths = new int[count];
+		for (int i = 0; i < count; i++) {
+			offsets[i] = offset + (long) i * MAXIMUM_CHUNK;
+			lengths[i] = (int) Math.min(MAXIMUM_CHUNK, length - (long) i * MAXIMUM_CHUNK);
+		}
+		return new Lob.Chunks(reader, offsets, lengths, count);
+	}
+
+	@Override
+	public synchronized void close() throws Exception {
+		if (channel != null) {
+			channel.close();
+			reader.close();
+		}
+		if (temporaryFile != null) {
+			temporaryFile.close();
+		}
+	}
+}
@@ -1,5 +1,6 @@
 package org.backstamp.datapump.io;
 
+import java.io.ByteArrayInputStream;
 import java.io.File;
 import java.io.FileOutputStream;
 import java.io.IOException;
@@ -10,6 +11,11 @@ public class TemporaryFile implements AutoCloseable {
 	private final InputStream inputStream;
 	private Optional<File> temporaryFile = Optional.empty();
 	
+	// An empty file, for the caller to write to.
+	public TemporaryFile() {
+		this(new ByteArrayInputStream(new byte[0]));
+	}
+
 	public TemporaryFile(InputStream inputStream) {
 		this.inputStream = inputStream;
 	}
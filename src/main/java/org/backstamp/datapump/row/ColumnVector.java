@@ -0,0 +1,230 @@
+package org.backstamp.datapump.row;
+
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.util.Arrays;
+import java.util.TimeZone;
+
+import org.backstamp.datapump.table.ColumnDefinition;
+import org.backstamp.datapump.table.ColumnDefinition.ClobColumn;
+import org.backstamp.datapump.table.ColumnDefinition.NumericBytes;
+import org.backstamp.datapump.table.ColumnDefinition.StringColumn;
+import org.backstamp.datapump.table.ColumnDefinition.TimestampBytes;
+
+/**
+ * The values of one column across a batch of rows, with a bitmap marking the
+ * rows where it is NULL.
+ */
+public interface ColumnVector {
+
+	public int size();
+
+	public boolean isNull(int index);
+
+	public abstract class NullableVector implements ColumnVector {
+		private final long[] nulls;
+		private int size;
+
+		protected NullableVector(int capacity) {
+			this.nulls = new long[(capacity + 63) >>> 6];
+		}
+
+		@Override
+		public int size() {
+			return size;
+		}
+
+		@Override
+		public boolean isNull(int index) {
+			return (nulls[index >>> 6] & (1L << index)) != 0;
+		}
+
+		void add(ByteBuffer encoding) {
+			if (encoding == null) {
+				nulls[size >>> 6] |= 1L << size;
+				addNull(size);
+			} else {
+				add(encoding, size);
+			}
+			size++;
+		}
+
+		void clear() {
+			Arrays.fill(nulls, 0L);
+			size = 0;
+		}
+
+		protected abstract void add(ByteBuffer encoding, int index);
+
+		protected abstract void addNull(int index);
+	}
+
+	// Whole NUMBER values; NULLs are zero.
+	public class LongVector extends NullableVector {
+		private final long[] values;
+
+		public LongVector(int capacity) {
+			super(capacity);
+			this.values = new long[capacity];
+		}
+
+		// Only the first size() values are filled.
+		public long[] values() {
+			return values;
+		}
+
+		public long get(int index) {
+			return values[index];
+		}
+
+		@Override
+		protected void add(ByteBuffer encoding, int index) {
+			new NumericBytes(encoding).decode(values, index);
+		}
+
+		@Override
+		protected void addNull(int index) {
+			values[index] = 0L;
+		}
+	}
+
+	// NUMBER values that may have a fraction, each an unscaled long and a scale as with BigDecimal; NULLs are zero.
+	public class DecimalVector extends NullableVector {
+		private final long[] unscaled;
+		private final int[] scales;
+		// Values whose unscaled value does not fit in a long, allocated when the first one is added.
+		private BigDecimal[] wide;
+
+		public DecimalVector(int capacity) {
+			super(capacity);
+			this.unscaled = new long[capacity];
+			this.scales = new int[capacity];
+		}
+
+		// Only the first size() values are filled, and a wide value is zero here.
+		public long[] unscaled() {
+			return unscaled;
+		}
+
+		public int[] scales() {
+			return scales;
+		}
+
+		// Whether the value is only available from get() because its unscaled value does not fit in a long.
+		public boolean isWide(int index) {
+			return wide != null && wide[index] != null;
+		}
+
+		public BigDecimal get(int index) {
+			return isWide(index) ? wide[index] : BigDecimal.valueOf(unscaled[index], scales[index]);
+		}
+
+		@Override
+		protected void add(ByteBuffer encoding, int index) {
+			NumericBytes number = new NumericBytes(encoding);
+			if (number.decode(unscaled, scales, index)) {
+				if (wide != null) {
+					wide[index] = null;
+				}
+				return;
+			}
+			if (wide == null) {
+				wide = new BigDecimal[unscaled.length];
+			}
+			wide[index] = number.decodeExact();
+			unscaled[index] = 0L;
+			scales[index] = 0;
+		}
+
+		@Override
+		protected void addNull(int index) {
+			unscaled[index] = 0L;
+			scales[index] = 0;
+			if (wide != null) {
+				wide[index] = null;
+			}
+		}
+	}
+
+	// DATE values as milliseconds since the epoch, as with java.util.Date.
+	public class DateVector extends LongVector {
+		private final TimeZone zone;
+
+		public DateVector(int capacity) {
+			this(capacity, TimeZone.getDefault());
+		}
+
+		public DateVector(int capacity, TimeZone zone) {
+			super(capacity);
+			this.zone = zone;
+		}
+
+		@Override
+		protected void add(ByteBuffer encoding, int index) {
+			new TimestampBytes(encoding).decode(values(), index, zone);
+		}
+	}
+
+	// String and raw values laid end to end, with the offset of each in the shared array.
+	public class BytesVector extends NullableVector {
+		private final ColumnDefinition column;
+		private final int[] offsets;
+		private byte[] bytes;
+
+		public BytesVector(ColumnDefinition column, int capacity) {
+			super(capacity);
+			this.column = column;
+			this.offsets = new int[capacity + 1];
+			this.bytes = new byte[capacity * 16];
+		}
+
+		// Value i spans [offsets()[i], offsets()[i + 1]) in bytes().
+		public int[] offsets() {
+			return offsets;
+		}
+
+		public byte[] bytes() {
+			return bytes;
+		}
+
+		public int length(int index) {
+			return offsets[index + 1] - offsets[index];
+		}
+
+		public byte[] getBytes(int index) {
+			return isNull(index) ? null : Arrays.copyOfRange(bytes, offsets[index], offsets[index + 1]);
+		}
+
+		public String getString(int index) {
+			if (isNull(index)) {
+				return null;
+			}
+			if (column instanceof StringColumn) {
+				ByteBuffer field = ByteBuffer.wrap(bytes, offsets[index], length(index));
+				return ((StringColumn) column).decode(field);
+			}
+			if (column instanceof ClobColumn) {
+				Charset charset = ((ClobColumn) column).charset();
+				return new String(bytes, offsets[index], length(index), charset);
+			}
+			return new String(bytes, offsets[index], length(index));
+		}
+
+		@Override
+		protected void add(ByteBuffer encoding, int index) {
+			int start = offsets[index];
+			int length = encoding.remaining();
+			if (bytes.length < start + length) {
+				bytes = Arrays.copyOf(bytes, Math.max(start + length, bytes.length * 2));
+			}
+			encoding.duplicate().get(bytes, start, length);
+			offsets[index + 1] = start + length;
+		}
+
+		@Override
+		protected void addNull(int index) {
+			offsets[index + 1] = offsets[index];
+		}
+	}
+}
@@ -0,0 +1,180 @@
+package org.backstamp.datapump.row;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.function.Predicate;
+
+import org.backstamp.datapump.table.ColumnDefinition;
+import org.backstamp.datapump.table.ColumnDefinition.NumberColumn;
+import org.backstamp.datapump.table.ColumnDefinition.NumericBytes;
+import org.backstamp.datapump.table.ColumnDefinition.TimestampBytes;
+import org.backstamp.datapump.table.ColumnDefinition.TimestampColumn;
+import org.backstamp.datapump.table.TableDefinition.Table;
+
+/**
+ * A test of a single field in its encoded form. NUMBER and DATE encodings sort in
+ * the same order as their values when compared as unsigned bytes, so constants are
+ * encoded once and compared against each field without decoding it.
+ */
+public interface FieldPredicate {
+
+	// Resolves the column to test in a table, failing if it has no such column of the right type.
+	public int bind(Table table);
+
+	// Tests an encoded field, or null for a NULL.
+	public boolean test(ByteBuffer field);
+
+	public static FieldPredicate isNull(String column) {
+		return new NullPredicate(column);
+	}
+
+	public static FieldPredicate equalTo(String column, long value) {
+		return in(column, value);
+	}
+
+	public static FieldPredicate equalTo(String column, Date value) {
+		return in(column, value);
+	}
+
+	// Inclusive of both ends.
+	public static FieldPredicate between(String column, long from, long to) {
+		return new RangePredicate(
+			column,
+			NumberColumn.class,
+			NumericBytes.encode(from),
+			NumericBytes.encode(to));
+	}
+
+	// Inclusive of both ends; a null end leaves the range open on that side.
+	public static FieldPredicate between(String column, Date from, Date to) {
+		return new RangePredicate(
+			column,
+			TimestampColumn.class,
+			from == null ? null : TimestampBytes.encode(from),
+			to == null ? null : TimestampBytes.encode(to));
+	}
+
+	public static FieldPredicate in(String column, long... values) {
+		return new SetPredicate(column, NumberColumn.class, Arrays.stream(values)
+			.mapToObj(NumericBytes::encode)
+			.toArray(byte[][]::new));
+	}
+
+	public static FieldPredicate in(String column, Date... values) {
+		return new SetPredicate(column, TimestampColumn.class, Arrays.stream(values)
+			.map(TimestampBytes::encode)
+			.toArray(byte[][]::new));
+	}
+
+	// Binds each predicate to the table and tests the current row of a cursor against all of them.
+	public static Predicate<RowCursor> all(Table table, FieldPredicate... predicates) {
+		final int[] columns = Arrays.stream(predicates).mapToInt(i -> i.bind(table)).toArray();
+		final FieldPredicate[] tests = predicates.clone();
+		return cursor -> {
+			for (int i = 0; i < tests.length; i++) {
+				if (!tests[i].test(cursor.getBuffer(columns[i]))) {
+					return false;
+				}
+			}
+			return true;
+		};
+	}
+
+	// Compares an encoded field with an encoded constant as unsigned bytes.
+	public static int compare(ByteBuffer field, byte[] constant) {
+		int length = Math.min(field.remaining(), constant.length);
+		for (int i = 0; i < length; i++) {
+			int difference = Byte.toUnsignedInt(field.get(field.position() + i))
+				- Byte.toUnsignedInt(constant[i]);
+			if (difference != 0) {
+				return difference;
+			}
+		}
+		return field.remaining() - constant.length;
+	}
+
+	public abstract class ColumnPredicate implements FieldPredicate {
+		private final String column;
+		private final Class<? extends ColumnDefinition> type;
+
+		protected ColumnPredicate(String column, Class<? extends ColumnDefinition> type) {
+			this.column = column;
+			this.type = type;
+		}
+
+		@Override
+		public int bind(Table table) {
+			int index = table.requireIndexOf(column);
+			if (type != null && !type.isInstance(table.columns().get(index))) {
+				throw new IllegalArgumentException(String.format(
+					"The column %s cannot be compared with a %s.",
+					column,
+					type == NumberColumn.class ? "number" : "date"));
+			}
+			return index;
+		}
+	}
+
+	public class NullPredicate extends ColumnPredicate {
+
+		public NullPredicate(String column) {
+			super(column, null);
+		}
+
+		@Override
+		public boolean test(ByteBuffer field) {
+			return field == null;
+		}
+	}
+
+	public class RangePredicate extends ColumnPredicate {
+		private final byte[] from;
+		private final byte[] to;
+
+		public RangePredicate(String column, Class<? extends ColumnDefinition> type, byte[] from, byte[] to) {
+			super(column, type);
+			this.from = from;
+			this.to = to;
+		}
+
+		@Override
+		public boolean test(ByteBuffer field) {
+			return field != null
+				&& (from == null || compare(field, from) >= 0)
+				&& (to == null || compare(field, to) <= 0);
+		}
+	}
+
+	public class SetPredicate extends ColumnPredicate {
+		private final byte[][] values;
+
+		public SetPredicate(String column, Class<? extends ColumnDefinition> type, byte[]... values) {
+			super(column, type);
+			this.values = values.clone();
+			Arrays.sort(this.values, (a, b) -> compare(ByteBuffer.wrap(a), b));
+		}
+
+		@Override
+		public boolean test(ByteBuffer field) {
+			if (field == null) {
+				return false;
+			}
+			// Binary search over the constants, which are sorted as unsigned bytes.
+			int low = 0;
+			int high = values.length - 1;
+			while (low <= high) {
+				int middle = (low + high) >>> 1;
+				int comparison = compare(field, values[middle]);
+				if (comparison == 0) {
+					return true;
+				} else if (comparison > 0) {
+					low = middle + 1;
+				} else {
+					high = middle - 1;
+				}
+			}
+			return false;
+		}
+	}
+}
@@ -0,0 +1,361 @@
+package org.backstamp.datapump.row;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.Writer;
+import java.nio.charset.Charset;
+import java.sql.Blob;
+import java.sql.Clob;
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+import java.util.Arrays;
+
+import org.backstamp.datapump.util.Reader;
+
+/**
+ * A LOB value as the chunks it was written in, which may be spread over several
+ * rows. The chunks are read from the file only when the value is, so the file
+ * must stay open for as long as the value is in use.
+ */
+public interface Lob {
+
+	// The length in bytes.
+	public long length();
+
+	public InputStream stream();
+
+	// Gathers every chunk into one array of exactly length() bytes.
+	public byte[] toArray();
+
+	// A LOB already held on the heap.
+	public class Bytes implements Lob {
+		private final byte[] bytes;
+
+		public Bytes(byte[] bytes) {
+			this.bytes = bytes;
+		}
+
+		@Override
+		public long length() {
+			return bytes.length;
+		}
+
+		@Override
+		public InputStream stream() {
+			return new ByteArrayInputStream(bytes);
+		}
+
+		// The array itself rather than a copy.
+		@Override
+		public byte[] toArray() {
+			return bytes;
+		}
+	}
+
+	public class Chunks implements Lob {
+		private final Reader source;
+		private final long[] offsets;
+		private final int[] lengths;
+		private final long length;
+
+		public Chunks(Reader source, long[] offsets, int[] lengths, int count) {
+			this.source = source;
+			this.offsets = Arrays.copyOf(offsets, count);
+			this.lengths = Arrays.copyOf(lengths, count);
+			this.length = Arrays.stream(this.lengths).asLongStream().sum();
+		}
+
+		@Override
+		public long length() {
+			return length;
+		}
+
+		@Override
+		public InputStream stream() {
+			return new ChunkInputStream(source.cursor(), offsets, lengths, offsets.length);
+		}
+
+		@Override
+		public byte[] toArray() {
+			byte[] array = new byte[Math.toIntExact(length)];
+			read(source.cursor(), offsets, lengths, offsets.length, array);
+			return array;
+		}
+
+		// Copies the chunks in order into the start of an array that is long enough to hold them.
+		static void read(Reader reader, long[] offsets, int[] lengths, int count, byte[] array) {
+			long position = reader.position();
+			int start = 0;
+			for (int i = 0; i < count; i++) {
+				reader.seek(offsets[i]);
+				reader.slice(lengths[i]).get(array, start, lengths[i]);
+				start += lengths[i];
+			}
+			reader.seek(position);
+		}
+	}
+
+	public class ChunkInputStream extends InputStream {
+		private final Reader reader;
+		private final long[] offsets;
+		private final int[] lengths;
+		private final int count;
+		private int chunk;
+		private int offset;
+
+		ChunkInputStream(Reader reader, long[] offsets, int[] lengths, int count) {
+			this.reader = reader;
+			this.offsets = offsets;
+			this.lengths = lengths;
+			this.count = count;
+		}
+
+		@Override
+		public int read() {
+			byte[] next = new byte[1];
+			return read(next, 0, 1) < 0 ? -1 : next[0] & 0xff;
+		}
+
+		@Override
+		public int read(byte[] array, int start, int length) {
+			if (length == 0) {
+				return 0;
+			}
+			while (chunk < count && offset == lengths[chunk]) {
+				chunk++;
+				offset = 0;
+			}
+			if (chunk == count) {
+				return -1;
+			}
+			int n = Math.min(length, lengths[chunk] - offset);
+			long position = reader.position();
+			reader.seek(offsets[chunk] + offset);
+			reader.slice(n).get(array, start, n);
+			reader.seek(position);
+			offset += n;
+			return n;
+		}
+
+		@Override
+		public long skip(long n) {
+			long skipped = 0;
+			while (skipped < n && chunk < count) {
+				int step = (int) Math.min(n - skipped, lengths[chunk] - offset);
+				offset += step;
+				skipped += step;
+				if (offset == lengths[chunk]) {
+					chunk++;
+					offset = 0;
+				}
+			}
+			return skipped;
+		}
+
+		@Override
+		public int available() {
+			return chunk < count ? lengths[chunk] - offset : 0;
+		}
+	}
+
+	// A read-only java.sql.Blob over the bytes of a LOB.
+	public class LobBlob implements Blob {
+		private final Lob lob;
+
+		public LobBlob(Lob lob) {
+			this.lob = lob;
+		}
+
+		@Override
+		public long length() {
+			return lob.length();
+		}
+
+		@Override
+		public byte[] getBytes(long pos, int length) throws SQLException {
+			int n = (int) Math.max(0, Math.min(length, lob.length() - (pos - 1)));
+			try (InputStream stream = getBinaryStream(pos, n)) {
+				byte[] bytes = new byte[n];
+				for (int start = 0, read; start < n; start += read) {
+					read = stream.read(bytes, start, n - start);
+					if (read < 0) {
+						throw new SQLException("The LOB ended early.");
+					}
+				}
+				return bytes;
+			} catch (IOException e) {
+				throw new SQLException(e);
+			}
+		}
+
+		@Override
+		public InputStream getBinaryStream() {
+			return lob.stream();
+		}
+
+		@Override
+		public InputStream getBinaryStream(long pos, long length) throws SQLException {
+			if (pos < 1 || length < 0 || pos - 1 + length > lob.length()) {
+				throw new SQLException(String.format(
+					"The range of %d bytes at %d is outside a LOB of %d bytes.",
+					length,
+					pos,
+					lob.length()));
+			}
+			InputStream stream = lob.stream();
+			try {
+				stream.skip(pos - 1);
+			} catch (IOException e) {
+				throw new SQLException(e);
+			}
+			return stream;
+		}
+
+		@Override
+		public long position(byte[] pattern, long start) throws SQLException {
+			throw new SQLFeatureNotSupportedException();
+		}
+
+		@Override
+		public long position(Blob pattern, long start) throws SQLException {
+			throw new SQLFeatureNotSupportedException();
+		}
+
+		@Override
+		public int setBytes(long pos, byte[] bytes) throws SQLException {
+			throw new SQLFeatureNotSupportedException();
+		}
+
+		@Override
+		public int setBytes(long pos, byte[] bytes, int offset, int len) throws SQLException {
+			throw new SQLFeatureNotSupportedException();
+		}
+
+		@Override
+		public OutputStream setBinaryStream(long pos) throws SQLException {
+			throw new SQLFeatureNotSupportedException();
+		}
+
+		@Override
+		public void truncate(long len) throws SQLException {
+			throw new SQLFeatureNotSupportedException();
+		}
+
+		@Override
+		public void free() {
+		}
+	}
+
+	// A read-only java.sql.Clob over the characters of a LOB, decoded as they are read.
+	public class LobClob implements Clob {
+		private final Lob lob;
+		private final Charset charset;
+
+		public LobClob(Lob lob, Charset charset) {
+			this.lob = lob;
+			this.charset = charset;
+		}
+
+		@Override
+		public long length() throws SQLException {
+			try (java.io.Reader reader = getCharacterStream()) {
+				long length = 0;
+				char[] characters = new char[4096];
+				for (int n; (n = reader.read(characters)) >= 0;) {
+					length += n;
+				}
+				return length;
+			} catch (IOException e) {
+				throw new SQLException(e);
+			}
+		}
+
+		@Override
+		public String getSubString(long pos, int length) throws SQLException {
+			try (java.io.Reader reader = getCharacterStream(pos, length)) {
+				StringBuilder builder = new StringBuilder(length);
+				char[] characters = new char[Math.max(1, Math.min(length, 4096))];
+				while (builder.length() < length) {
+					int remaining = length - builder.length();
+					int n = reader.read(characters, 0, Math.min(characters.length, remaining));
+					if (n < 0) {
+						break;
+					}
+					builder.append(characters, 0, n);
+				}
+				return builder.toString();
+			} catch (IOException e) {
+				throw new SQLException(e);
+			}
+		}
+
+		@Override
+		public java.io.Reader getCharacterStream() {
+			return new InputStreamReader(lob.stream(), charset);
+		}
+
+		@Override
+		public java.io.Reader getCharacterStream(long pos, long length) throws SQLException {
+			if (pos < 1 || length < 0) {
+				throw new SQLException(String.format(
+					"The range of %d characters at %d is outside the LOB.",
+					length,
+					pos));
+			}
+			java.io.Reader reader = getCharacterStream();
+			try {
+				reader.skip(pos - 1);
+			} catch (IOException e) {
+				throw new SQLException(e);
+			}
+			return reader;
+		}
+
+		@Override
+		public InputStream getAsciiStream() throws SQLException {
+			throw new SQLFeatureNotSupportedException();
+		}
+
+		@Override
+		public long position(String searchstr, long start) throws SQLException {
+			throw new SQLFeatureNotSupportedException();
+		}
+
+		@Override
+		public long position(Clob searchstr, long start) throws SQLException {
+			throw new SQLFeatureNotSupportedException();
+		}
+
+		@Override
+		public int setString(long pos, String str) throws SQLException {
+			throw new SQLFeatureNotSupportedException();
+		}
+
+		@Override
+		public int setString(long pos, String str, int offset, int len) throws SQLException {
+			throw new SQLFeatureNotSupportedException();
+		}
+
+		@Override
+		public OutputStream setAsciiStream(long pos) throws SQLException {
+			throw new SQLFeatureNotSupportedException();
+		}
+
+		@Override
+		public Writer setCharacterStream(long pos) throws SQLException {
+			throw new SQLFeatureNotSupportedException();
+		}
+
+		@Override
+		public void truncate(long len) throws SQLException {
+			throw new SQLFeatureNotSupportedException();
+		}
+
+		@Override
+		public void free() {
+		}
+	}
+}
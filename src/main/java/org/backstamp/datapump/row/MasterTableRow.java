@@ -1,136 +1,101 @@
 package org.backstamp.datapump.row;
 
-import java.io.ByteArrayInputStream;
 import java.io.InputStream;
 import java.io.UnsupportedEncodingException;
-import java.util.List;
-import java.util.stream.Collectors;
 
-import org.backstamp.datapump.table.ColumnDefinition;
 import org.backstamp.datapump.table.TableDefinition.Table;
+import org.backstamp.datapump.table.TableDefinition.Table.Plan;
 
 public class MasterTableRow extends TableRow {
+	private static final Plan<Layout> LAYOUT = new Plan<>(Layout::new);
+
+	private final Layout layout;
 
-	@SuppressWarnings("unused")
-	private int PROCESS_ORDER, DUPLICATE, DUMP_FILEID, DUMP_POSITION, DUMP_LENGTH, DUMP_ALLOCATION,
-		COMPLETED_ROWS, ERROR_COUNT, ELAPSED_TIME, OBJECT_TYPE_PATH, OBJECT_PATH_SEQNO, OBJECT_TYPE,
-		IN_PROGRESS, OBJECT_NAME, OBJECT_LONG_NAME, OBJECT_SCHEMA, ORIGINAL_OBJECT_SCHEMA,
-		PARTITION_NAME, SUBPARTITION_NAME, FLAGS, PROPERTY, COMPLETION_TIME, OBJECT_TABLESPACE,
-		SIZE_ESTIMATE, OBJECT_ROW, PROCESSING_STATE, PROCESSING_STATUS, BASE_PROCESS_ORDER,
-		BASE_OBJECT_TYPE, BASE_OBJECT_NAME, BASE_OBJECT_SCHEMA, ANCESTOR_PROCESS_ORDER,
-		DOMAIN_PROCESS_ORDER, PARALLELIZATION, UNLOAD_METHOD, GRANULES, SCN, GRANTOR, XML_CLOB,
-		NAME, VALUE_T, VALUE_N, IS_DEFAULT, FILE_TYPE, USER_DIRECTORY, USER_FILE_NAME, FILE_NAME,
-		EXTEND_SIZE, FILE_MAX_SIZE, PROCESS_NAME, LAST_UPDATE, WORK_ITEM, OBJECT_NUMBER,
-		COMPLETED_BYTES, TOTAL_BYTES, METADATA_IO, DATA_IO, CUMULATIVE_TIME, PACKET_NUMBER,
-		OLD_VALUE, SEED, LAST_FILE, USER_NAME, OPERATION, JOB_MODE, CONTROL_QUEUE, STATUS_QUEUE,
-		REMOTE_LINK, VERSION, DB_VERSION, TIMEZONE, STATE, PHASE, GUID, START_TIME, BLOCK_SIZE,
-		METADATA_BUFFER_SIZE, DATA_BUFFER_SIZE, DEGREE, PLATFORM, ABORT_STEP, INSTANCE,
-		TARGET_XML_CLOB;
-	
 	public MasterTableRow(Object[] row, Table tableDefinition) {
 		super(row, tableDefinition);
-
-		// TODO: Convert to a single-pass assignment scheme.
-		List<String> names = tableDefinition.columns().stream()
-			.map(ColumnDefinition::toString)
-			.collect(Collectors.toList());
-
-		PROCESS_ORDER = names.indexOf("PROCESS_ORDER");
-		VALUE_T = names.indexOf("VALUE_T");
-		XML_CLOB = names.indexOf("XML_CLOB");
-		NAME = names.indexOf("NAME");
-		PLATFORM = names.indexOf("PLATFORM");
-		SIZE_ESTIMATE = names.indexOf("SIZE_ESTIMATE");
-		OBJECT_TYPE = names.indexOf("OBJECT_TYPE");
-		OBJECT_SCHEMA = names.indexOf("OBJECT_SCHEMA");
-		OBJECT_NAME = names.indexOf("OBJECT_NAME");
-		COMPLETED_ROWS = names.indexOf("COMPLETED_ROWS");
-		DUMP_POSITION = names.indexOf("DUMP_POSITION");
-		OBJECT_TYPE_PATH = names.indexOf("OBJECT_TYPE_PATH");
-		DUMP_ALLOCATION = names.indexOf("DUMP_ALLOCATION");
-		DUPLICATE = names.indexOf("DUPLICATE");
-		PROCESSING_STATUS = names.indexOf("PROCESSING_STATUS");
-		PROCESSING_STATE = names.indexOf("PROCESSING_STATE");
-		GRANTOR = names.indexOf("GRANTOR");
-		TARGET_XML_CLOB = names.indexOf("TARGET_XML_CLOB");
+		this.layout = tableDefinition.plan(LAYOUT);
 	}
 
 	public int processOrder() {
-		return asInt(PROCESS_ORDER, Integer.MIN_VALUE); 
+		return asInt(layout.processOrder, Integer.MIN_VALUE); 
 	}
 	
 	public String name() {
-		return asString(NAME);
+		return asString(layout.name);
 	}
 	
 	public String value_t() {
-		return asString(VALUE_T);
+		return asString(layout.valueT);
 	}
 
 	public String platform() {
-		return asString(PLATFORM);
+		return asString(layout.platform);
 	}
 
 	public long sizeEstimate() {
-		return asLong(SIZE_ESTIMATE, 0L);
+		return asLong(layout.sizeEstimate, 0L);
 	}
 
 	public String objectName() {
-		return asString(OBJECT_NAME);
+		return asString(layout.objectName);
 	}
 
 	public String objectType() {
-		return asString(OBJECT_TYPE);
+		return asString(layout.objectType);
 	}
 
 	public String objectTypePath() {
-		return asString(OBJECT_TYPE_PATH);
+		return asString(layout.objectTypePath);
 	}
 
 	public String objectSchema() {
-		return asString(OBJECT_SCHEMA);
+		return asString(layout.objectSchema);
+	}
+
+	public long completedRows() {
+		return asLong(layout.completedRows, 0L);
 	}
 
-	public int completedRows() {
-		return asInt(COMPLETED_ROWS, 0);
+	public boolean hasCompletedRows() {
+		return layout.completedRows >= 0 && !isNull(layout.completedRows);
 	}
 
 	public long dumpPosition() {
-		return asLong(DUMP_POSITION, 0L);
+		return asLong(layout.dumpPosition, 0L);
 	}
 
 	public long dumpAllocation() {
-		return asLong(DUMP_ALLOCATION, 1L);
+		return asLong(layout.dumpAllocation, 1L);
 	}
 
 	public InputStream xmlInputStream() {
-		return new ByteArrayInputStream(asBytes(XML_CLOB));
+		return asStream(layout.xmlClob);
 	}
 
 	public String xmlString() {
-		byte[] bytes = asBytes(XML_CLOB);
+		byte[] bytes = asBytes(layout.xmlClob);
 		return new XMLString(bytes).toString();
 	}
 
 	public String targetXMLString() {
-		byte[] bytes = asBytes(TARGET_XML_CLOB);
+		byte[] bytes = asBytes(layout.targetXmlClob);
 		return new XMLString(bytes).toString();
 	}
 
 	public int duplicate() {
-		return asInt(DUPLICATE, Integer.MIN_VALUE); 
+		return asInt(layout.duplicate, Integer.MIN_VALUE); 
 	}
 
 	public String processingState() {
-		return asString(PROCESSING_STATE);
+		return asString(layout.processingState);
 	}
 
 	public String processingStatus() {
-		return asString(PROCESSING_STATUS);
+		return asString(layout.processingStatus);
 	}
 
 	public String grantor() {
-		return asString(GRANTOR);
+		return asString(layout.grantor);
 	}
 
 	public class XMLString {
@@ -164,4 +129,32 @@ public class MasterTableRow extends TableRow {
 				| bytes[3]) & 0xffffffff;
 		}
 	}
+
+	// Column positions shared by every row of a master table.
+	private static class Layout {
+		private final int processOrder, valueT, xmlClob, name, platform, sizeEstimate,
+			objectType, objectSchema, objectName, completedRows, dumpPosition, objectTypePath,
+			dumpAllocation, duplicate, processingStatus, processingState, grantor, targetXmlClob;
+
+		Layout(Table table) {
+			processOrder = table.indexOf("PROCESS_ORDER");
+			valueT = table.indexOf("VALUE_T");
+			xmlClob = table.indexOf("XML_CLOB");
+			name = table.indexOf("NAME");
+			platform = table.indexOf("PLATFORM");
+			sizeEstimate = table.indexOf("SIZE_ESTIMATE");
+			objectType = table.indexOf("OBJECT_TYPE");
+			objectSchema = table.indexOf("OBJECT_SCHEMA");
+			objectName = table.indexOf("OBJECT_NAME");
+			completedRows = table.indexOf("COMPLETED_ROWS");
+			dumpPosition = table.indexOf("DUMP_POSITION");
+			objectTypePath = table.indexOf("OBJECT_TYPE_PATH");
+			dumpAllocation = table.indexOf("DUMP_ALLOCATION");
+			duplicate = table.indexOf("DUPLICATE");
+			processingStatus = table.indexOf("PROCESSING_STATUS");
+			processingState = table.indexOf("PROCESSING_STATE");
+			grantor = table.indexOf("GRANTOR");
+			targetXmlClob = table.indexOf("TARGET_XML_CLOB");
+		}
+	}
 }
@@ -0,0 +1,113 @@
+package org.backstamp.datapump.row;
+
+import java.util.List;
+import java.util.TimeZone;
+
+import org.backstamp.datapump.row.ColumnVector.BytesVector;
+import org.backstamp.datapump.row.ColumnVector.DateVector;
+import org.backstamp.datapump.row.ColumnVector.DecimalVector;
+import org.backstamp.datapump.row.ColumnVector.LongVector;
+import org.backstamp.datapump.row.ColumnVector.NullableVector;
+import org.backstamp.datapump.table.ColumnDefinition;
+import org.backstamp.datapump.table.ColumnDefinition.NumberColumn;
+import org.backstamp.datapump.table.ColumnDefinition.TimestampColumn;
+import org.backstamp.datapump.table.TableDefinition.Table;
+
+/**
+ * A group of consecutive rows from a table held column by column: longs for
+ * whole NUMBER and DATE columns, unscaled longs and scales for other NUMBER
+ * columns and offsets into a shared array of bytes for everything else.
+ */
+public class RowBatch {
+	private final Table table;
+	private final int capacity;
+	private final NullableVector[] vectors;
+	private int size;
+
+	public RowBatch(Table table, int capacity) {
+		if (capacity < 1) {
+			throw new IllegalArgumentException(String.format(
+				"The batch size %d is not positive.",
+				capacity));
+		}
+		List<ColumnDefinition> columns = table.columns();
+		this.table = table;
+		this.capacity = capacity;
+		this.vectors = new NullableVector[columns.size()];
+		TimeZone zone = TimeZone.getDefault();
+		for (int i = 0; i < vectors.length; i++) {
+			ColumnDefinition column = columns.get(i);
+			if (column instanceof NumberColumn) {
+				vectors[i] = ((NumberColumn) column).isIntegral()
+					? new LongVector(capacity)
+					: new DecimalVector(capacity);
+			} else if (column instanceof TimestampColumn) {
+				vectors[i] = new DateVector(capacity, zone);
+			} else {
+				vectors[i] = new BytesVector(column, capacity);
+			}
+		}
+	}
+
+	public Table table() {
+		return table;
+	}
+
+	public int size() {
+		return size;
+	}
+
+	public int capacity() {
+		return capacity;
+	}
+
+	public ColumnVector vector(int column) {
+		return vectors[column];
+	}
+
+	public boolean isNull(int column, int row) {
+		return vectors[column].isNull(row);
+	}
+
+	public LongVector longs(int column) {
+		if (!(vectors[column] instanceof LongVector)) {
+			throw new IllegalArgumentException(String.format(
+				"The column %s is not a whole NUMBER or a DATE.",
+				table.columns().get(column).name()));
+		}
+		return (LongVector) vectors[column];
+	}
+
+	public DecimalVector decimals(int column) {
+		if (!(vectors[column] instanceof DecimalVector)) {
+			throw new IllegalArgumentException(String.format(
+				"The column %s is not a NUMBER that may have a fraction.",
+				table.columns().get(column).name()));
+		}
+		return (DecimalVector) vectors[column];
+	}
+
+	public BytesVector bytes(int column) {
+		if (!(vectors[column] instanceof BytesVector)) {
+			throw new IllegalArgumentException(String.format(
+				"The column %s is a NUMBER or DATE.",
+				table.columns().get(column).name()));
+		}
+		return (BytesVector) vectors[column];
+	}
+
+	// Reads up to capacity() rows from the cursor, returning false when there were none left.
+	public boolean fill(RowCursor cursor) {
+		for (NullableVector vector : vectors) {
+			vector.clear();
+		}
+		size = 0;
+		while (size < capacity && cursor.next()) {
+			for (int i = 0; i < vectors.length; i++) {
+				vectors[i].add(cursor.getBuffer(i));
+			}
+			size++;
+		}
+		return size > 0;
+	}
+}
@@ -0,0 +1,555 @@
+package org.backstamp.datapump.row;
+
+import java.io.ByteArrayInputStream;
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Serializable;
+import java.nio.ByteBuffer;
+import java.sql.Blob;
+import java.sql.Clob;
+import java.util.Arrays;
+import java.util.TimeZone;
+import java.util.stream.IntStream;
+
+import org.backstamp.datapump.row.Lob.Chunks;
+import org.backstamp.datapump.row.Lob.LobBlob;
+import org.backstamp.datapump.row.Lob.LobClob;
+import org.backstamp.datapump.table.ColumnDefinition;
+import org.backstamp.datapump.table.ColumnDefinition.ClobColumn;
+import org.backstamp.datapump.table.ColumnDefinition.NumberColumn;
+import org.backstamp.datapump.table.ColumnDefinition.NumericBytes;
+import org.backstamp.datapump.table.ColumnDefinition.StringColumn;
+import org.backstamp.datapump.table.ColumnDefinition.StringDecoder;
+import org.backstamp.datapump.table.ColumnDefinition.TimestampBytes;
+import org.backstamp.datapump.table.ColumnDefinition.TimestampColumn;
+import org.backstamp.datapump.table.TableDefinition.Table;
+import org.backstamp.datapump.util.Reader;
+
+/**
+ * A forward-only view of the rows in a table. Each call to {@link #next()} reads
+ * the fields of the following row into buffers that are reused from row to row,
+ * so values must be copied out before advancing.
+ */
+public interface RowCursor {
+
+	public Table table();
+
+	public boolean next();
+
+	public boolean isNull(int column);
+
+	// Zero when the value is NULL, as with java.sql.ResultSet; dates are milliseconds since the epoch.
+	public long getLong(int column);
+
+	public String getString(int column);
+
+	public byte[] getBytes(int column);
+
+	public Object getObject(int column);
+
+	// The encoded field, or null when it is NULL; valid until the cursor advances.
+	public ByteBuffer getBuffer(int column);
+
+	// Reads a LOB from the file as the stream is read rather than gathering it first.
+	public InputStream getBinaryStream(int column);
+
+	// The LOBs below stay valid after the cursor advances, for as long as the file is open.
+	public Blob getBlob(int column);
+
+	public Clob getClob(int column);
+
+	// The reader state at the start of a row: after its flag, length and column count.
+	public class Position implements Serializable {
+		private static final long serialVersionUID = 1L;
+
+		private final long offset;
+		private final int rowFlag;
+		private final int numberOfColumns;
+
+		private Position(long offset, int rowFlag, int numberOfColumns) {
+			this.offset = offset;
+			this.rowFlag = rowFlag;
+			this.numberOfColumns = numberOfColumns;
+		}
+
+		public long offset() {
+			return offset;
+		}
+
+		// Writes the offset as a variable-length distance from the position before it, if any.
+		public void write(DataOutput out, Position previous) throws IOException {
+			long distance = offset - (previous == null ? 0L : previous.offset);
+			while ((distance & ~0x7fL) != 0) {
+				out.writeByte((int) (distance & 0x7f) | 0x80);
+				distance >>>= 7;
+			}
+			out.writeByte((int) distance);
+			out.writeByte(rowFlag);
+			out.writeByte(numberOfColumns);
+		}
+
+		public static Position read(DataInput in, Position previous) throws IOException {
+			long distance = 0L;
+			for (int shift = 0;; shift += 7) {
+				int next = in.readUnsignedByte();
+				distance |= (long) (next & 0x7f) << shift;
+				if ((next & 0x80) == 0) {
+					break;
+				}
+			}
+			return new Position(
+				(previous == null ? 0L : previous.offset) + distance,
+				in.readUnsignedByte(),
+				in.readUnsignedByte());
+		}
+	}
+
+	public class TableCursor implements RowCursor {
+		private static final int INITIAL_FIELD_SIZE = 32;
+
+		private final Table table;
+		private final ColumnDefinition[] columns;
+		private final int[] lobColumns;
+		private final boolean hasLob;
+		private final Reader reader;
+		private final byte[][] fields;
+		private final ByteBuffer[] views;
+		private final int[] lengths;
+		private final StringDecoder[] decoders;
+		private final long[][] chunkOffsets;
+		private final int[][] chunkLengths;
+		private final int[] chunks;
+		private final boolean[] isGathered;
+		private final TimeZone zone = TimeZone.getDefault();
+		private boolean[] projection;
+		private int rowFlag;
+		private long rowStart;
+		private int rowLength;
+		private int numberOfColumns;
+		private boolean hasNext;
+
+		// Starts at the first row of a table whose data the reader is positioned at.
+		public TableCursor(Reader reader, Table table) {
+			this(reader, table, null);
+			readHeader();
+		}
+
+		// Starts at a row boundary previously recorded from position().
+		public TableCursor(Reader reader, Table table, Position position) {
+			this.table = table;
+			this.columns = table.columns().toArray(new ColumnDefinition[] {});
+			this.lobColumns = IntStream.range(0, columns.length).filter(i -> columns[i].isLob()).toArray();
+			this.hasLob = lobColumns.length > 0;
+			this.reader = reader;
+			this.fields = new byte[columns.length][INITIAL_FIELD_SIZE];
+			this.views = Arrays.stream(fields).map(ByteBuffer::wrap).toArray(ByteBuffer[]::new);
+			this.lengths = new int[columns.length];
+			Arrays.fill(lengths, -1);
+			this.decoders = Arrays.stream(columns)
+				.map(i -> i instanceof StringColumn ? ((StringColumn) i).decoder() : null)
+				.toArray(StringDecoder[]::new);
+
+			// LOB fields are left in the file and read from the offsets of their chunks.
+			this.chunkOffsets = new long[columns.length][];
+			this.chunkLengths = new int[columns.length][];
+			for (int column : lobColumns) {
+				chunkOffsets[column] = new long[4];
+				chunkLengths[column] = new int[4];
+			}
+			this.chunks = new int[columns.length];
+			this.isGathered = new boolean[columns.length];
+			if (position != null) {
+				reader.seek(position.offset);
+				rowFlag = position.rowFlag;
+				numberOfColumns = position.numberOfColumns;
+				if (rowFlag == 0x3c) {
+					rowStart = position.offset - 4;
+					reader.seek(rowStart + 1);
+					rowLength = reader.read2(); // Row length.
+					reader.skip(1);
+				}
+				hasNext = numberOfColumns != 0x00;
+			}
+		}
+
+		@Override
+		public Table table() {
+			return table;
+		}
+
+		public boolean hasNext() {
+			return hasNext;
+		}
+
+		@Override
+		public boolean next() {
+			if (!hasNext) {
+				return false;
+			}
+			readRow(false);
+			return true;
+		}
+
+		// Walks past the next row without reading any of its fields.
+		public void skip() {
+			if (rowFlag == 0x3c && !hasLob) {
+				reader.seek(rowStart + rowLength);
+				rowFlag = reader.read1();
+				readTrailer(true);
+			} else {
+				readRow(true);
+			}
+		}
+
+		// Reads only the named columns from here on; the others are skipped and read as NULL.
+		public TableCursor project(String... columns) {
+			return project(projection(table, columns));
+		}
+
+		// A null projection reads every column.
+		public TableCursor project(boolean[] projection) {
+			this.projection = projection;
+			return this;
+		}
+
+		// Shares one String among equal values of a string column, as with StringDecoder.intern(int).
+		public TableCursor intern(int column, int capacity) {
+			if (decoders[column] == null) {
+				throw new IllegalArgumentException(String.format(
+					"The column %s of table %s is not a string.",
+					columns[column].name(),
+					table.name()));
+			}
+			decoders[column].intern(capacity);
+			return this;
+		}
+
+		// Marks the named columns of a table, failing on any the table does not have.
+		public static boolean[] projection(Table table, String... columns) {
+			boolean[] projection = new boolean[table.columns().size()];
+			for (String column : columns) {
+				int index = table.requireIndexOf(column);
+				projection[index] = true;
+			}
+			return projection;
+		}
+
+		public Position position() {
+			return new Position(reader.position(), rowFlag, numberOfColumns);
+		}
+
+		@Override
+		public boolean isNull(int column) {
+			return lengths[column] < 0;
+		}
+
+		@Override
+		public long getLong(int column) {
+			if (isNull(column)) {
+				return 0L;
+			}
+			if (columns[column] instanceof NumberColumn) {
+				return new NumericBytes(view(column)).decode();
+			}
+			if (columns[column] instanceof TimestampColumn) {
+				return new TimestampBytes(view(column)).decodeMillis(zone);
+			}
+			return ((Number) getObject(column)).longValue();
+		}
+
+		@Override
+		public String getString(int column) {
+			if (isNull(column)) {
+				return null;
+			}
+			if (columns[column] instanceof ClobColumn) {
+				return new String(getBytes(column), ((ClobColumn) columns[column]).charset());
+			}
+			Object value = getObject(column);
+			if (value instanceof byte[]) {
+				throw new IllegalArgumentException(String.format(
+					"The column %s of table %s holds bytes, not characters.",
+					columns[column].name(),
+					table.name()));
+			}
+			return value.toString();
+		}
+
+		@Override
+		public byte[] getBytes(int column) {
+			if (isNull(column)) {
+				return null;
+			}
+			if (isLob(column) && !isGathered[column]) {
+				return gather(column, new byte[lengths[column]]);
+			}
+			return Arrays.copyOf(fields[column], lengths[column]);
+		}
+
+		@Override
+		public Object getObject(int column) {
+			if (isNull(column)) {
+				return null;
+			}
+			if (isLob(column)) {
+				return getBytes(column);
+			}
+			if (decoders[column] != null) {
+				return decoders[column].decode(view(column));
+			}
+			if (columns[column] instanceof TimestampColumn) {
+				return new TimestampBytes(view(column)).decode(zone);
+			}
+			return columns[column].decode(view(column));
+		}
+
+		@Override
+		public ByteBuffer getBuffer(int column) {
+			return isNull(column) ? null : view(column);
+		}
+
+		@Override
+		public InputStream getBinaryStream(int column) {
+			if (isNull(column)) {
+				return null;
+			}
+			return isLob(column) ? lob(column).stream() : new ByteArrayInputStream(getBytes(column));
+		}
+
+		@Override
+		public Blob getBlob(int column) {
+			Lob lob = lob(column);
+			return lob == null ? null : new LobBlob(lob);
+		}
+
+		@Override
+		public Clob getClob(int column) {
+			if (!(columns[column] instanceof ClobColumn)) {
+				throw new IllegalArgumentException(String.format(
+					"The column %s of table %s is not a CLOB.",
+					columns[column].name(),
+					table.name()));
+			}
+			Lob lob = lob(column);
+			return lob == null ? null : new LobClob(lob, ((ClobColumn) columns[column]).charset());
+		}
+
+		// The chunks of a LOB field, or null when it is NULL.
+		public Lob lob(int column) {
+			if (!isLob(column)) {
+				throw new IllegalArgumentException(String.format(
+					"The column %s of table %s is not a LOB.",
+					columns[column].name(),
+					table.name()));
+			}
+			if (isNull(column)) {
+				return null;
+			}
+			return new Chunks(reader, chunkOffsets[column], chunkLengths[column], chunks[column]);
+		}
+
+		private byte[] gather(int column, byte[] array) {
+			Chunks.read(reader, chunkOffsets[column], chunkLengths[column], chunks[column], array);
+			return array;
+		}
+
+		private boolean isLob(int column) {
+			return chunkOffsets[column] != null;
+		}
+
+		private ByteBuffer view(int column) {
+			if (isLob(column) && !isGathered[column]) {
+				if (fields[column].length < lengths[column]) {
+					fields[column] = new byte[lengths[column]];
+					views[column] = ByteBuffer.wrap(fields[column]);
+				}
+				gather(column, fields[column]);
+				isGathered[column] = true;
+			}
+			ByteBuffer view = views[column];
+			view.clear();
+			view.limit(lengths[column]);
+			return view;
+		}
+
+		private void readHeader() {
+			rowStart = reader.position();
+			rowFlag = reader.read1();
+			if (rowFlag == 0x3c) {
+				rowLength = reader.read2(); // Row length.
+			}
+			numberOfColumns = reader.read1();
+			hasNext = (numberOfColumns != 0x00);
+		}
+
+		// Reads the fields of the next row into the column buffers, or walks past them.
+		private void readRow(boolean skip) {
+			if (!skip) {
+				Arrays.fill(lengths, -1);
+			}
+			int numberOfColumns = this.numberOfColumns;
+			for (int column = 0; column < Math.min(columns.length, numberOfColumns); column++) {
+				int size = reader.read1();
+
+				// LOBs often extend into one or more adjoining rows
+				// unless indicated as inline with the 0xfe header.
+				if (columns[column].isLob()
+					&& size != 0xfe) {
+					column++;
+					numberOfColumns++;
+				}
+
+				switch (size) {
+				case 0x00:
+					assert false;
+					break;
+				case 0xff: // NULL column value
+					break;
+				case 0xfe:
+					int length = reader.read2();
+					if (skip || !isProjected(column)) {
+						reader.skip(length);
+					} else {
+						readField(column, length, false);
+					}
+					break;
+				default:
+					if (skip || !isProjected(column)) {
+						reader.skip(size);
+					} else {
+						readField(column, size, false);
+					}
+					break;
+				}
+			}
+			rowFlag = reader.read1();
+			readTrailer(skip);
+		}
+
+		private boolean isProjected(int column) {
+			return projection == null || projection[column];
+		}
+
+		// Copies a field into its column buffer, or onto the end of it for a LOB continued across rows.
+		private void readField(int column, int length, boolean append) {
+			if (isLob(column)) {
+				readChunk(column, length, append);
+				return;
+			}
+			int start = append ? lengths[column] : 0;
+			if (fields[column].length < start + length) {
+				int capacity = Math.max(start + length, fields[column].length * 2);
+				fields[column] = Arrays.copyOf(fields[column], capacity);
+				views[column] = ByteBuffer.wrap(fields[column]);
+			}
+			reader.slice(length).get(fields[column], start, length);
+			lengths[column] = start + length;
+		}
+
+		// Notes where a chunk of a LOB is and walks past it; the chunks are read when the LOB is.
+		private void readChunk(int column, int length, boolean append) {
+			int count = append ? chunks[column] : 0;
+			if (chunkOffsets[column].length == count) {
+				chunkOffsets[column] = Arrays.copyOf(chunkOffsets[column], count * 2);
+				chunkLengths[column] = Arrays.copyOf(chunkLengths[column], count * 2);
+			}
+			chunkOffsets[column][count] = reader.position();
+			chunkLengths[column][count] = length;
+			chunks[column] = count + 1;
+			lengths[column] = (append ? lengths[column] : 0) + length;
+			isGathered[column] = false;
+			reader.skip(length);
+		}
+
+		private void readTrailer(boolean skip) {
+			long start = reader.position() - 1;
+			switch (rowFlag) {
+			case 0x3c:
+				rowLength = reader.read2(); // Row length.
+				break;
+			default:
+				break;
+			}
+
+			// Handle LOB (BLOB, CLOB) column rows, which continue the LOBs of the row before them.
+			if (hasLob
+				&& acceptLob(rowFlag)) {
+				int[] rowLobColumns = lobColumns;
+
+				int numberOfColumns = reader.read1();
+				if (numberOfColumns > rowLobColumns.length) {
+					// A row with more columns than the table has LOBs continues none of them;
+					// pass over its one-byte fields to the row after it.
+					for (int column = 0; column < numberOfColumns; column++) {
+						reader.read1();
+					}
+					rowFlag = reader.read1();
+					numberOfColumns = reader.read1();
+				}
+
+				// Combine LOBs that span multiple rows into the
+				// existing buffer containing its data.
+				int i = 0;
+				boolean shouldContinue = numberOfColumns > 0;
+				while (shouldContinue) {
+					int column = rowLobColumns[i];
+					// Only a 0xfe header carries a chunk; a NULL (0xff) adds nothing to the LOB.
+					if (reader.read1() == 0xfe) {
+						int length = reader.read2();
+						if (skip || !isProjected(column)) {
+							reader.skip(length);
+						} else {
+							readField(column, length, (rowFlag == 0x06
+								|| rowFlag == 0x03)
+								&& !isNull(column));
+						}
+					}
+					start = reader.position();
+					rowFlag = reader.read1();
+					if (rowFlag == 0x01
+						|| rowFlag == 0x04) {
+						// Advance if we have the start of a new LOB or a new complete LOB.
+						i++;
+					} else if (!acceptLob(rowFlag)) {
+						break;
+					}
+					if (i >= Math.min(numberOfColumns, rowLobColumns.length)) {
+						if (acceptLob(rowFlag)) {
+							if (rowLobColumns.length == 1) {
+								break;
+							} else {
+								rowLobColumns = Arrays.copyOfRange(
+									rowLobColumns,
+									1,
+									rowLobColumns.length);
+								i = 0;
+							}
+						} else {
+							break;
+						}
+					}
+					numberOfColumns = reader.read1();
+				}
+			}
+
+			rowStart = start;
+			numberOfColumns = reader.read1();
+			hasNext = (numberOfColumns != 0x00);
+		}
+
+		private boolean acceptLob(int rowFlag) {
+			switch (rowFlag) {
+				case 0x04: // Complete LOB.
+				case 0x01: // Start of a multi-row LOB.
+				case 0x03: // Middle of a multi-row LOB.
+				case 0x06: // Last of a multi-row LOB.
+				case 0x00: // Empty
+					return true;
+				default:
+					return false;
+			}
+		}
+	}
+}
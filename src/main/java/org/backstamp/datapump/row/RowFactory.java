@@ -0,0 +1,28 @@
+package org.backstamp.datapump.row;
+
+import java.lang.reflect.Constructor;
+
+import org.backstamp.datapump.table.TableDefinition.Table;
+
+@FunctionalInterface
+public interface RowFactory<T extends TableRow> {
+
+	public T create(Object[] row, Table table);
+
+	// Looks up the (Object[], Table) constructor once rather than for every row.
+	public static <T extends TableRow> RowFactory<T> of(Class<T> type) {
+		final Constructor<T> ctor;
+		try {
+			ctor = type.getConstructor(Object[].class, Table.class);
+		} catch (NoSuchMethodException e) {
+			throw new IllegalArgumentException(e);
+		}
+		return (row, table) -> {
+			try {
+				return ctor.newInstance(row, table);
+			} catch (Exception e) {
+				throw new RuntimeException(e);
+			}
+		};
+	}
+}
@@ -0,0 +1,183 @@
+package org.backstamp.datapump.row;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+import org.backstamp.datapump.row.RowCursor.Position;
+import org.backstamp.datapump.row.RowCursor.TableCursor;
+
+/**
+ * Row boundaries sampled from a single pass over a table without decoding its
+ * fields: the boundary of every stride-th row, from which a cursor can start.
+ */
+public class RowIndex {
+	private static final int MAGIC = 0x44504958; // DPIX
+	private static final int VERSION = 1;
+
+	private final List<Position> positions;
+	private long stride;
+	private long rows;
+
+	// Keeps the boundary of every stride-th row.
+	public RowIndex(TableCursor cursor, long stride) {
+		this(cursor, stride, Integer.MAX_VALUE);
+	}
+
+	// Keeps at most the given number of boundaries, sampling half as often each time it fills.
+	public static RowIndex sample(TableCursor cursor, int maximumSize) {
+		return new RowIndex(cursor, 1L, maximumSize);
+	}
+
+	private RowIndex(TableCursor cursor, long stride, int maximumSize) {
+		if (stride < 1 || maximumSize < 2) {
+			throw new IllegalArgumentException(String.format(
+				"The index cannot keep %d rows apart in %d boundaries.",
+				stride,
+				maximumSize));
+		}
+		this.positions = new ArrayList<>();
+		this.stride = stride;
+		while (cursor.hasNext()) {
+			if (rows % this.stride == 0) {
+				if (positions.size() == maximumSize) {
+					// Keep every other boundary and sample half as often from here on.
+					int half = maximumSize / 2;
+					for (int i = 0; i < half; i++) {
+						positions.set(i, positions.get(i * 2));
+					}
+					positions.subList(half, positions.size()).clear();
+					this.stride *= 2;
+				}
+				if (rows % this.stride == 0) {
+					positions.add(cursor.position());
+				}
+			}
+			cursor.skip();
+			rows++;
+		}
+	}
+
+	private RowIndex(List<Position> positions, long stride, long rows) {
+		this.positions = positions;
+		this.stride = stride;
+		this.rows = rows;
+	}
+
+	public long rows() {
+		return rows;
+	}
+
+	public long stride() {
+		return stride;
+	}
+
+	public int size() {
+		return positions.size();
+	}
+
+	public Position position(int index) {
+		return positions.get(index);
+	}
+
+	public long rowsBefore(int index) {
+		return index == positions.size() ? rows : index * stride;
+	}
+
+	// The last boundary at or before the given row.
+	public int indexOf(long row) {
+		return (int) Math.min(row / stride, positions.size() - 1);
+	}
+
+	/**
+	 * Saves the index to a file with the GUID of its dump and the offset of its
+	 * table, which a load checks before using the index. The index is written to
+	 * a file alongside and then moved into place, so the file is never seen part
+	 * written.
+	 */
+	public void save(File file, String guid, long offset) {
+		File directory = file.getAbsoluteFile().getParentFile();
+		File temporary;
+		try {
+			temporary = File.createTempFile(file.getName(), ".tmp", directory);
+		} catch (IOException e) {
+			throw new RuntimeException(e);
+		}
+		try {
+			write(temporary, guid, offset);
+			Files.move(temporary.toPath(), file.toPath(),
+				StandardCopyOption.ATOMIC_MOVE,
+				StandardCopyOption.REPLACE_EXISTING);
+		} catch (IOException e) {
+			throw new RuntimeException(e);
+		} finally {
+			temporary.delete();
+		}
+	}
+
+	private void write(File file, String guid, long offset) throws IOException {
+		try (DataOutputStream out = new DataOutputStream(
+			new BufferedOutputStream(new FileOutputStream(file)))) {
+			out.writeInt(MAGIC);
+			out.writeByte(VERSION);
+			out.writeUTF(guid);
+			out.writeLong(offset);
+			out.writeLong(stride);
+			out.writeLong(rows);
+			out.writeInt(positions.size());
+			Position previous = null;
+			for (Position position : positions) {
+				position.write(out, previous);
+				previous = position;
+			}
+		}
+	}
+
+	/**
+	 * An index saved for the same dump and table with the given stride, or empty
+	 * when there is none or the file is truncated or corrupt, so that it is built again.
+	 */
+	public static Optional<RowIndex> load(File file, String guid, long offset, long stride) {
+		if (!file.isFile()) {
+			return Optional.empty();
+		}
+		try (DataInputStream in = new DataInputStream(
+			new BufferedInputStream(new FileInputStream(file)))) {
+			if (in.readInt() != MAGIC
+				|| in.readByte() != VERSION
+				|| !in.readUTF().equals(guid)
+				|| in.readLong() != offset
+				|| in.readLong() != stride) {
+				return Optional.empty();
+			}
+			long rows = in.readLong();
+			int size = in.readInt();
+			// Every stride-th row of the table has a boundary, and nothing follows the last one.
+			if (rows < 0 || size != (rows + stride - 1) / stride) {
+				return Optional.empty();
+			}
+			List<Position> positions = new ArrayList<>(size);
+			Position previous = null;
+			for (int i = 0; i < size; i++) {
+				previous = Position.read(in, previous);
+				positions.add(previous);
+			}
+			if (in.read() >= 0) {
+				return Optional.empty();
+			}
+			return Optional.of(new RowIndex(positions, stride, rows));
+		} catch (IOException | RuntimeException e) {
+			return Optional.empty();
+		}
+	}
+}
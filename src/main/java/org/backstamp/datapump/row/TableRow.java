@@ -1,22 +1,23 @@
 package org.backstamp.datapump.row;
 
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.nio.charset.Charset;
 import java.sql.PreparedStatement;
 import java.sql.SQLException;
-import java.util.AbstractMap;
-import java.util.Arrays;
 import java.util.List;
-import java.util.Map;
 import java.util.Objects;
 import java.util.stream.Collectors;
 import java.util.stream.IntStream;
 
+import org.backstamp.datapump.row.Lob.LobClob;
 import org.backstamp.datapump.table.ColumnDefinition;
+import org.backstamp.datapump.table.ColumnDefinition.ClobColumn;
 import org.backstamp.datapump.table.TableDefinition.Table;
 
 public class TableRow {
 	
 	private final Object[] row;
-	private Map<String, Integer> map;
 	private final Table table;
 
 	public TableRow(Object[] row, Table tableDefinition) {
@@ -24,12 +25,25 @@ public class TableRow {
 		this.table = tableDefinition;
 	}
 
+	protected boolean isNull(int column) {
+		return Objects.isNull(row[column]);
+	}
+
 	protected byte[] asBytes(int column) {
-		return (byte[]) row[column];
+		return (byte[]) value(column);
+	}
+
+	// Streams a LOB that has not been read yet from the file rather than gathering it first.
+	protected InputStream asStream(int column) {
+		if (row[column] instanceof Lob) {
+			return ((Lob) row[column]).stream();
+		}
+		byte[] bytes = asBytes(column);
+		return bytes == null ? null : new ByteArrayInputStream(bytes);
 	}
 
 	protected String asString(int column) {
-		return Objects.toString(row[column], null);
+		return Objects.toString(value(column), null);
 	}
 
 	protected String asString(String column) {
@@ -37,7 +51,7 @@ public class TableRow {
 	}
 
 	protected int asInt(int column, int defaultValue) {
-		return Objects.isNull(row[column]) ? defaultValue : Long.class.cast(row[column]).intValue();
+		return Objects.isNull(row[column]) ? defaultValue : Number.class.cast(value(column)).intValue();
 	}
 
 	protected int asInt(String column, int defaultValue) {
@@ -45,39 +59,59 @@ public class TableRow {
 	}
 
 	protected long asLong(int column, long defaultValue) {
-		return Objects.isNull(row[column]) ? defaultValue : Long.class.cast(row[column]).longValue();
+		return Objects.isNull(row[column]) ? defaultValue : Number.class.cast(value(column)).longValue();
+	}
+
+	// Decodes a field kept in its encoded form the first time it is read; rows such as
+	// the master table's are shared between threads, so the decoded value is published under a lock.
+	private synchronized Object value(int column) {
+		Object value = row[column];
+		if (value instanceof Encoded) {
+			value = table.columns().get(column).decode(((Encoded) value).field);
+			row[column] = value;
+		} else if (value instanceof Lob) {
+			value = ((Lob) value).toArray();
+			row[column] = value;
+		}
+		return value;
 	}
 
 	@Override
 	public int hashCode() {
-		return Arrays.stream(row).mapToInt(i -> i != null ? i.hashCode() % 51 : 0).sum();
+		return IntStream.range(0, row.length)
+			.mapToObj(this::value)
+			.mapToInt(i -> i != null ? i.hashCode() % 51 : 0)
+			.sum();
 	}
 
 	@Override
 	public String toString() {
 		final List<ColumnDefinition> columns = table.columns();
 		return IntStream.range(0, columns.size())
-			.mapToObj(i -> columns.get(0).isLob() ? new String((byte[]) row[i])
-				: Objects.toString(row[i], ""))
+			.mapToObj(i -> columns.get(0).isLob() ? new String((byte[]) value(i))
+				: Objects.toString(value(i), ""))
 			.collect(Collectors.joining(","));
 	}
 
+	// LOBs not yet decoded are streamed into the statement rather than gathered, CLOBs as the
+	// characters of their column's character set.
 	public void populateStatement(PreparedStatement s) throws SQLException {
+		final List<ColumnDefinition> columns = table.columns();
 		for (int i = 0; i < row.length; i++) {
-			s.setObject(i + 1, row[i]);
+			if (row[i] instanceof Lob && columns.get(i) instanceof ClobColumn) {
+				Charset charset = ((ClobColumn) columns.get(i)).charset();
+				s.setCharacterStream(i + 1, new LobClob((Lob) row[i], charset).getCharacterStream());
+			} else if (row[i] instanceof Lob && columns.get(i).isBlob()) {
+				Lob lob = (Lob) row[i];
+				s.setBinaryStream(i + 1, lob.stream(), lob.length());
+			} else {
+				s.setObject(i + 1, value(i));
+			}
 		}
 	}
 
 	private int map(String column) {
-		if (map == null) {
-			final List<ColumnDefinition> columns = table.columns();
-			map = IntStream.range(0, columns.size())
-				.mapToObj(
-					i -> new AbstractMap.SimpleEntry<String, Integer>(columns.get(i).name()
-						.toLowerCase(), i))
-				.collect(Collectors.toMap(i -> i.getKey(), i -> i.getValue()));
-		}
-		return map.get(column.toLowerCase());
+		return table.requireIndexOf(column);
 	}
 
 	public String tableName() {
@@ -92,4 +126,16 @@ public class TableRow {
 		}
 		return true;
 	}
+
+	/**
+	 * A field that a row keeps in its encoded form and decodes only when it is
+	 * first read, after which the decoded value replaces it.
+	 */
+	public static final class Encoded {
+		private final byte[] field;
+
+		public Encoded(byte[] field) {
+			this.field = field;
+		}
+	}
 }
@@ -6,27 +6,45 @@ import java.sql.DriverManager;
 import java.sql.PreparedStatement;
 import java.sql.SQLException;
 import java.sql.SQLFeatureNotSupportedException;
+import java.util.Arrays;
+import java.util.Iterator;
 import java.util.function.Predicate;
 import java.util.logging.Logger;
-import java.util.stream.Stream;
+import java.util.stream.IntStream;
 
 import javax.sql.DataSource;
 
 import org.backstamp.datapump.DataPumpFile;
 import org.backstamp.datapump.DataPumpTable;
+import org.backstamp.datapump.io.LobStore;
 import org.backstamp.datapump.row.MasterTableRow;
 import org.backstamp.datapump.row.TableRow;
 
 public class DataPumpDataSource implements DataSource {
+	private static final int BATCH_SIZE = 1000;
+
 	private Connection connection;
 	private DataPumpFile dataPumpFile;
 	private String[] tables;
+	private long lobBudget = Long.MAX_VALUE;
+	private int lobThreshold = Integer.MAX_VALUE;
 	
 	public DataPumpDataSource(DataPumpFile dataPumpFile, String... tables) {
 		this.dataPumpFile = dataPumpFile;
 		this.tables = tables;
 	}
 
+	/**
+	 * Keeps at most the given number of bytes of LOBs on the heap at once while
+	 * loading a table; LOBs over the threshold, and any past the budget, are
+	 * written to a temporary file until they have been loaded.
+	 */
+	public DataPumpDataSource lobBudget(long budget, int threshold) {
+		this.lobBudget = budget;
+		this.lobThreshold = threshold;
+		return this;
+	}
+
 	/* (non-Javadoc)
 	 * @see javax.sql.DataSource#getConnection()
 	 */
@@ -66,17 +84,29 @@ public class DataPumpDataSource implements DataSource {
 		}
 		
 		// INSERT INTO ...
-		try (PreparedStatement s = connection.prepareStatement(table.get().toSQLInsertSyntax())) {
-			Stream<TableRow> rowStream = table.rows();
-			rowStream.forEach(row -> {
-				try {
-					row.populateStatement(s);
-					s.addBatch();
-				} catch (SQLException e) {
-					throw new RuntimeException(e);
+		try (PreparedStatement s = connection.prepareStatement(table.get().toSQLInsertSyntax());
+			LobStore lobs = new LobStore(lobBudget, lobThreshold)) {
+			IntStream.Builder counts = IntStream.builder();
+			Iterator<TableRow> rows = table.rows(lobs).iterator();
+			int batched = 0;
+			while (rows.hasNext()) {
+				rows.next().populateStatement(s);
+				s.addBatch();
+				if (++batched == BATCH_SIZE) {
+					// The rows are read one at a time, so the LOBs up to here are those of the batch,
+					// which are no longer held once it is executed.
+					long mark = lobs.mark();
+					Arrays.stream(s.executeBatch()).forEach(counts);
+					lobs.release(mark);
+					batched = 0;
 				}
-			});
-			return s.executeBatch(); 
+			}
+			Arrays.stream(s.executeBatch()).forEach(counts);
+			return counts.build().toArray();
+		} catch (SQLException e) {
+			throw e;
+		} catch (Exception e) {
+			throw new RuntimeException(e);
 		}
 	}
 
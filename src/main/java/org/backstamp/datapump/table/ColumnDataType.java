@@ -41,7 +41,7 @@ public interface ColumnDataType<T> {
 
 	public static final ColumnDataType<String> VARCHAR = new DefaultDataType<String>("varchar", String.class);
 	public static final ColumnDataType<String> VARCHAR2 = new DefaultDataType<String>("varchar2", String.class);
-	public static final ColumnDataType<Long> NUMBER = new DefaultDataType<Long>("number", Long.class);
+	public static final ColumnDataType<Number> NUMBER = new DefaultDataType<Number>("number", Number.class);
 
 	public class DefaultDataType<T> implements ColumnDataType<T> {
 	
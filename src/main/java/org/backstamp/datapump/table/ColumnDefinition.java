@@ -1,8 +1,17 @@
 package org.backstamp.datapump.table;
 
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CodingErrorAction;
+import java.time.LocalDateTime;
 import java.util.Calendar;
 import java.util.Date;
 import java.util.List;
+import java.util.TimeZone;
 import java.util.stream.Collectors;
 import java.util.stream.IntStream;
 
@@ -14,8 +23,12 @@ public interface ColumnDefinition {
 
 	public boolean isLob();
 
+	public boolean isBlob();
+
 	public Object decode(byte[] field);
 
+	public Object decode(ByteBuffer field);
+
 	public class Column<T> implements ColumnDefinition {
 
 		private String name;
@@ -51,6 +64,11 @@ public interface ColumnDefinition {
 				p));
 		}
 
+		@Override
+		public T decode(ByteBuffer field) {
+			return decode(toArray(field));
+		}
+
 		@Override
 		public String toSQL() {
 			return String.format("%s %s", name, dataType.toTypeSyntax());
@@ -60,27 +78,241 @@ public interface ColumnDefinition {
 		public boolean isLob() {
 			return dataType.isLob();
 		}
+
+		@Override
+		public boolean isBlob() {
+			return dataType.name().equalsIgnoreCase("blob");
+		}
+
+		protected static byte[] toArray(ByteBuffer field) {
+			byte[] bytes = new byte[field.remaining()];
+			field.duplicate().get(bytes);
+			return bytes;
+		}
 	}
 
-	public class NumberColumn extends Column<Long> {
-		public NumberColumn(String name, ColumnDataType<Long> type) {
+	public class NumberColumn extends Column<Number> {
+		public NumberColumn(String name, ColumnDataType<Number> type) {
 			super(name, type);
 		}
 
+		// Whether every value is a whole number that fits in a long: a precision of at most 18 digits and no fraction.
+		public boolean isIntegral() {
+			ColumnDataType<Number> type = dataType();
+			return type.precision() > 0 && type.scale() <= 0 && type.precision() - type.scale() <= 18;
+		}
+
+		@Override
+		public Number decode(byte[] encoding) {
+			return new NumericBytes(encoding).decodeNumber();
+		}
+
 		@Override
-		public Long decode(byte[] encoding) {
-			return new NumericBytes(encoding).decode();
+		public Number decode(ByteBuffer encoding) {
+			return new NumericBytes(encoding).decodeNumber();
 		}
 	}
 
 	public class StringColumn extends Column<String> {
+		private final Charset charset;
+		private final boolean isAsciiCompatible;
+
 		public StringColumn(String name, ColumnDataType<String> type) {
+			this(name, type, Charset.defaultCharset());
+		}
+
+		public StringColumn(String name, ColumnDataType<String> type, Charset charset) {
 			super(name, type);
+			this.charset = charset;
+			this.isAsciiCompatible = isAsciiCompatible(charset);
+		}
+
+		public Charset charset() {
+			return charset;
 		}
 
 		@Override
 		public String decode(byte[] field) {
-			return new String(field, 0, field.length);
+			return decode(ByteBuffer.wrap(field));
+		}
+
+		@Override
+		public String decode(ByteBuffer field) {
+			if (!field.hasArray()) {
+				field = ByteBuffer.wrap(toArray(field));
+			}
+			byte[] array = field.array();
+			int offset = field.arrayOffset() + field.position();
+			int length = field.remaining();
+			if (isAsciiCompatible && isAscii(array, offset, length)) {
+				return ascii(array, offset, length);
+			}
+			return new String(array, offset, length, charset);
+		}
+
+		// A decoder for one thread to use for value after value.
+		public StringDecoder decoder() {
+			return new StringDecoder(this);
+		}
+
+		static boolean isAscii(byte[] array, int offset, int length) {
+			for (int i = offset; i < offset + length; i++) {
+				if (array[i] < 0) {
+					return false;
+				}
+			}
+			return true;
+		}
+
+		@SuppressWarnings("deprecation")
+		static String ascii(byte[] array, int offset, int length) {
+			// Widens each byte to a character without going through a decoder.
+			return new String(array, 0, offset, length);
+		}
+
+		private static boolean isAsciiCompatible(Charset charset) {
+			byte[] ascii = new byte[128];
+			for (int i = 0; i < ascii.length; i++) {
+				ascii[i] = (byte) i;
+			}
+			return ascii(ascii, 0, ascii.length).equals(new String(ascii, charset));
+		}
+	}
+
+	public class StringDecoder {
+		private final StringColumn column;
+		private final CharsetDecoder decoder;
+		private CharBuffer characters = CharBuffer.allocate(64);
+		private StringDictionary dictionary;
+
+		private StringDecoder(StringColumn column) {
+			this.column = column;
+			this.decoder = column.charset().newDecoder()
+				.onMalformedInput(CodingErrorAction.REPLACE)
+				.onUnmappableCharacter(CodingErrorAction.REPLACE);
+		}
+
+		// Shares one String among equal values, remembering up to the given number of them; zero stops sharing.
+		public StringDecoder intern(int capacity) {
+			if (capacity < 0) {
+				throw new IllegalArgumentException(String.format(
+					"The dictionary size %d is negative.",
+					capacity));
+			}
+			this.dictionary = capacity == 0 ? null : new StringDictionary(capacity);
+			return this;
+		}
+
+		public boolean isInterned() {
+			return dictionary != null;
+		}
+
+		public String decode(ByteBuffer field) {
+			if (!field.hasArray()) {
+				return column.decode(field);
+			}
+			byte[] array = field.array();
+			int offset = field.arrayOffset() + field.position();
+			int length = field.remaining();
+			String value = dictionary == null ? null : dictionary.get(array, offset, length);
+			if (value == null) {
+				value = decode(field, array, offset, length);
+				if (dictionary != null) {
+					dictionary.put(array, offset, length, value);
+				}
+			}
+			return value;
+		}
+
+		private String decode(ByteBuffer field, byte[] array, int offset, int length) {
+			if (column.isAsciiCompatible && StringColumn.isAscii(array, offset, length)) {
+				return StringColumn.ascii(array, offset, length);
+			}
+			int capacity = (int) Math.ceil(length * (double) decoder.maxCharsPerByte());
+			if (characters.capacity() < capacity) {
+				characters = CharBuffer.allocate(Math.max(capacity, characters.capacity() * 2));
+			}
+			characters.clear();
+			decoder.reset();
+			decoder.decode(field.duplicate(), characters, true);
+			decoder.flush(characters);
+			characters.flip();
+			return characters.toString();
+		}
+	}
+
+	/**
+	 * A fixed number of slots, each holding the last value decoded from encoded
+	 * bytes that hash to it. A value that finds its bytes in the slot is shared
+	 * rather than decoded again, so columns with few distinct values hold few strings.
+	 * A dictionary belongs to the decoder of one cursor, so it is never shared
+	 * between threads.
+	 */
+	public class StringDictionary {
+		// Longer values are seldom repeated and cost more to hash and compare.
+		static final int MAXIMUM_LENGTH = 128;
+
+		private final Entry[] entries;
+
+		public StringDictionary(int capacity) {
+			int size = Integer.highestOneBit(Math.min(Math.max(capacity - 1, 1), 1 << 29)) << 1;
+			this.entries = new Entry[size];
+		}
+
+		public String get(byte[] array, int offset, int length) {
+			if (length > MAXIMUM_LENGTH) {
+				return null;
+			}
+			int hash = hash(array, offset, length);
+			Entry entry = entries[hash & (entries.length - 1)];
+			if (entry != null
+				&& entry.hash == hash
+				&& entry.matches(array, offset, length)) {
+				return entry.value;
+			}
+			return null;
+		}
+
+		public void put(byte[] array, int offset, int length, String value) {
+			if (length > MAXIMUM_LENGTH) {
+				return;
+			}
+			int hash = hash(array, offset, length);
+			byte[] key = new byte[length];
+			System.arraycopy(array, offset, key, 0, length);
+			entries[hash & (entries.length - 1)] = new Entry(hash, key, value);
+		}
+
+		private static int hash(byte[] array, int offset, int length) {
+			int hash = 1;
+			for (int i = offset; i < offset + length; i++) {
+				hash = 31 * hash + array[i];
+			}
+			return hash ^ (hash >>> 16);
+		}
+
+		private static class Entry {
+			private final int hash;
+			private final byte[] key;
+			private final String value;
+
+			Entry(int hash, byte[] key, String value) {
+				this.hash = hash;
+				this.key = key;
+				this.value = value;
+			}
+
+			boolean matches(byte[] array, int offset, int length) {
+				if (key.length != length) {
+					return false;
+				}
+				for (int i = 0; i < length; i++) {
+					if (key[i] != array[offset + i]) {
+						return false;
+					}
+				}
+				return true;
+			}
 		}
 	}
 
@@ -93,6 +325,25 @@ public interface ColumnDefinition {
 		public byte[] decode(byte[] bytes) {
 			return bytes;
 		}
+
+		@Override
+		public byte[] decode(ByteBuffer bytes) {
+			return toArray(bytes);
+		}
+	}
+
+	// A CLOB or NCLOB, whose bytes are characters in the character set it is stored in.
+	public class ClobColumn extends RawColumn {
+		private final Charset charset;
+
+		public ClobColumn(String name, ColumnDataType<byte[]> type, Charset charset) {
+			super(name, type);
+			this.charset = charset;
+		}
+
+		public Charset charset() {
+			return charset;
+		}
 	}
 
 
@@ -106,94 +357,282 @@ public interface ColumnDefinition {
 		public Date decode(byte[] encoding) {
 			return new TimestampBytes(encoding).decode();
 		}
+
+		@Override
+		public Date decode(ByteBuffer encoding) {
+			return new TimestampBytes(encoding).decode();
+		}
 	}
 
 	public class NumericBytes {
-		byte[] encoding;
+		// "00", "01", ... "99" laid end to end.
+		private static final char[] DIGIT_PAIRS = new char[200];
+
+		static {
+			for (int i = 0; i < 100; i++) {
+				DIGIT_PAIRS[i * 2] = (char) ('0' + i / 10);
+				DIGIT_PAIRS[i * 2 + 1] = (char) ('0' + i % 10);
+			}
+		}
+
+		ByteBuffer encoding;
 		
 		public NumericBytes(byte[] encoding) {
+			this(ByteBuffer.wrap(encoding));
+		}
+
+		public NumericBytes(ByteBuffer encoding) {
 			this.encoding = encoding;
 		}
 
+		// Truncated toward zero and, past the range of a long, to its low 64 bits, as with Number.longValue().
 		public long decode() {
-			final boolean isPositive = (encoding[0]
-				& 0xffffff80) != 0;
-			final byte a = (byte) (((isPositive ? encoding[0]
-				: ~encoding[0])
-				& 0xffffff7f)
-				- 64);
-			final byte b = (byte) (encoding.length
-				- 1 - (isPositive
-					|| (encoding.length == 21
-						&& encoding[20] != 0x66) ? 0
-							: 1));
-	
+			final int first = Byte.toUnsignedInt(get(0));
+			if (first == 0x80) {
+				return 0L;
+			}
+			final boolean isPositive = (first & 0x80) != 0;
+			final int integerDigits = exponent(first) + 1;
+			if (integerDigits > 9) {
+				// Beyond eighteen decimal digits a long may overflow.
+				return decodeExact().longValue();
+			}
+			final int digits = Math.min(digits(isPositive), integerDigits);
+
 			long value = 0L;
-	
-			// Same as Math.min(a, b); b <= a ? b : a;
-			final int minimum = b ^ ((a ^ b) & -(a < b ? 1 : 0)); 
 			if (isPositive) {
-				switch (minimum) {
-					case 9: throw new IllegalStateException();
-					case 8: throw new IllegalStateException();
-					case 7: value = value * 100L + encoding[minimum - 6] - 1;
-					case 6: value = value * 100L + encoding[minimum - 5] - 1;
-					case 5: value = value * 100L + encoding[minimum - 4] - 1;
-					case 4: value = value * 100L + encoding[minimum - 3] - 1;
-					case 3: value = value * 100L + encoding[minimum - 2] - 1;
-					case 2: value = value * 100L + encoding[minimum - 1] - 1;
-					case 1: value = value * 100L + encoding[minimum - 0] - 1;
-					default: break;
+				for (int i = 1; i <= digits; i++) {
+					value = value * 100L + get(i) - 1;
 				}
 			} else {
-				switch (minimum) {
-					case 9: throw new IllegalStateException();
-					case 8: throw new IllegalStateException();
-					case 7: value = value * 100L - encoding[minimum - 6] + 101;
-					case 6: value = value * 100L - encoding[minimum - 5] + 101;
-					case 5: value = value * 100L - encoding[minimum - 4] + 101;
-					case 4: value = value * 100L - encoding[minimum - 3] + 101;
-					case 3: value = value * 100L - encoding[minimum - 2] + 101;
-					case 2: value = value * 100L - encoding[minimum - 1] + 101;
-					case 1: value = value * 100L - encoding[minimum - 0] + 101;
-					default: break;
+				for (int i = 1; i <= digits; i++) {
+					value = value * 100L + 101 - get(i);
 				}
 			}
-			switch (a - b) {
-				case 10: throw new IllegalStateException();
-				case 9: value *= 100L; 
-				case 8: value *= 100L; 
-				case 7: value *= 100L; 
-				case 6: value *= 100L; 
-				case 5: value *= 100L; 
-				case 4: value *= 100L; 
-				case 3: value *= 100L; 
-				case 2: value *= 100L; 
-				case 1: value *= 100L; 
-				default: break;
+			for (int i = digits; i < integerDigits; i++) {
+				value *= 100L;
 			}
 			return isPositive ? value : -value;
 		}
+
+		// A Long when the value is a whole number that fits in one, or a BigDecimal otherwise.
+		public Number decodeNumber() {
+			final int first = Byte.toUnsignedInt(get(0));
+			if (first == 0x80) {
+				return 0L;
+			}
+			final int integerDigits = exponent(first) + 1;
+			if (integerDigits <= 9 && digits((first & 0x80) != 0) <= integerDigits) {
+				return decode();
+			}
+			BigDecimal value = decodeExact();
+			if (value.scale() == 0 && value.unscaledValue().bitLength() < 64) {
+				return value.longValue();
+			}
+			return value;
+		}
+
+		public BigDecimal decodeExact() {
+			final int first = Byte.toUnsignedInt(get(0));
+			if (first == 0x80) {
+				return BigDecimal.ZERO;
+			}
+			final boolean isPositive = (first & 0x80) != 0;
+			final int digits = digits(isPositive);
+			char[] decimal = new char[digits * 2];
+			for (int i = 0; i < digits; i++) {
+				int digit = isPositive ? get(i + 1) - 1 : 101 - get(i + 1);
+				decimal[i * 2] = DIGIT_PAIRS[digit * 2];
+				decimal[i * 2 + 1] = DIGIT_PAIRS[digit * 2 + 1];
+			}
+
+			// The digits are the fraction 0.d1d2... scaled by 100 to the power of the exponent plus one.
+			BigDecimal value = new BigDecimal(
+				new BigInteger(new String(decimal)),
+				2 * (digits - exponent(first) - 1)).stripTrailingZeros();
+			if (value.scale() < 0) {
+				value = value.setScale(0);
+			}
+			return isPositive ? value : value.negate();
+		}
+
+		// The power of 100 of the first base-100 digit.
+		private static int exponent(int first) {
+			return ((first & 0x80) != 0 ? first & 0x7f : ~first & 0x7f) - 65;
+		}
+
+		// The number of base-100 digits, less the 0x66 that ends most negative numbers.
+		private int digits(boolean isPositive) {
+			final int length = encoding.remaining();
+			return isPositive || get(length - 1) != 0x66 ? length - 1 : length - 2;
+		}
+
+		public void decode(long[] vector, int index) {
+			vector[index] = decode();
+		}
+
+		// The value as an unscaled long and a scale, as with BigDecimal, or false without
+		// setting them when the unscaled value does not fit in a long.
+		public boolean decode(long[] unscaled, int[] scales, int index) {
+			final int first = Byte.toUnsignedInt(get(0));
+			if (first == 0x80) {
+				unscaled[index] = 0L;
+				scales[index] = 0;
+				return true;
+			}
+			final boolean isPositive = (first & 0x80) != 0;
+			final int digits = digits(isPositive);
+			int scale = 2 * (digits - exponent(first) - 1);
+			if (digits + Math.max(0, -scale / 2) > 9) {
+				return false;
+			}
+
+			long value = 0L;
+			if (isPositive) {
+				for (int i = 1; i <= digits; i++) {
+					value = value * 100L + get(i) - 1;
+				}
+			} else {
+				for (int i = 1; i <= digits; i++) {
+					value = value * 100L + 101 - get(i);
+				}
+			}
+			for (; scale < 0; scale += 2) {
+				value *= 100L;
+			}
+			// The last base-100 digit is never zero, but its second decimal digit may be.
+			if (scale > 0 && value % 10L == 0L) {
+				value /= 10L;
+				scale--;
+			}
+			unscaled[index] = isPositive ? value : -value;
+			scales[index] = scale;
+			return true;
+		}
+
+		// The encoding of a whole number, which sorts in the same order as the numbers when
+		// compared as unsigned bytes: an exponent byte, base-100 digits without trailing zeros
+		// and, for negative numbers, a terminating 0x66.
+		public static byte[] encode(long value) {
+			if (value == 0L) {
+				return new byte[] { (byte) 0x80 };
+			}
+			int[] digits = new int[10];
+			int length = 0;
+			for (long remainder = value; remainder != 0L; remainder /= 100L) {
+				digits[length++] = (int) Math.abs(remainder % 100L);
+			}
+			int trailing = 0;
+			while (digits[trailing] == 0) {
+				trailing++;
+			}
+			final boolean isNegative = value < 0L;
+			byte[] encoding = new byte[1 + length - trailing + (isNegative ? 1 : 0)];
+			encoding[0] = (byte) (isNegative ? ~(0xc0 + length) & 0x7f : 0xc0 + length);
+			for (int i = 1; i <= length - trailing; i++) {
+				int digit = digits[length - i];
+				encoding[i] = (byte) (isNegative ? 101 - digit : digit + 1);
+			}
+			if (isNegative) {
+				encoding[encoding.length - 1] = 0x66;
+			}
+			return encoding;
+		}
+
+		private byte get(int index) {
+			return encoding.get(encoding.position() + index);
+		}
 	}
 
 	public class TimestampBytes {
-		byte[] encoding;
+		ByteBuffer encoding;
 		
 		public TimestampBytes(byte[] encoding) {
+			this(ByteBuffer.wrap(encoding));
+		}
+
+		public TimestampBytes(ByteBuffer encoding) {
 			this.encoding = encoding;
 		}
 
 		public Date decode() {
+			return new Date(decodeMillis());
+		}
+
+		public Date decode(TimeZone zone) {
+			return new Date(decodeMillis(zone));
+		}
+
+		public void decode(long[] vector, int index, TimeZone zone) {
+			vector[index] = decodeMillis(zone);
+		}
+
+		public long decodeMillis() {
+			return decodeMillis(TimeZone.getDefault());
+		}
+
+		// Milliseconds since the epoch for the wall-clock time in the given time zone, which callers
+		// decoding many values look up once. As with java.util.Calendar, a time repeated when clocks
+		// go back reads as the later one and a time skipped when they go forward reads with the
+		// offset from before the change.
+		public long decodeMillis(TimeZone zone) {
+			long local = decodeLocalMillis();
+			int offset = zone.getOffset(local - zone.getRawOffset());
+			return local - zone.getOffset(local - offset);
+		}
+
+		// The wall-clock time as milliseconds since the epoch, without any time zone applied.
+		public long decodeLocalMillis() {
+			long seconds = epochDay() * 86400L
+				+ (get(4) - 1) * 3600L
+				+ (get(5) - 1) * 60L
+				+ (get(6) - 1);
+			return seconds * 1000L + nanos() / 1000000;
+		}
+
+		public LocalDateTime decodeLocalDateTime() {
+			return LocalDateTime.of(year(), get(2), get(3), get(4) - 1, get(5) - 1, get(6) - 1, nanos());
+		}
+
+		public static byte[] encode(Date date) {
 			Calendar calendar = Calendar.getInstance();
-			calendar.clear();
-			calendar.set(1, (0xff & encoding[0] - 100) * 100 + (0xff & encoding[1] - 100));
-			calendar.set(2,  0xff & encoding[2] - 1);
-			calendar.set(5,  0xff & encoding[3]);
-			calendar.set(11, 0xff & encoding[4] - 1);
-			calendar.set(12, 0xff & encoding[5] - 1);
-			calendar.set(13, 0xff & encoding[6] - 1);
-			calendar.set(14, 0);
-			return calendar.getTime();
+			calendar.setTime(date);
+			int year = calendar.get(1);
+			return new byte[] {
+				(byte) (year / 100 + 100),
+				(byte) (year % 100 + 100),
+				(byte) (calendar.get(2) + 1),
+				(byte) calendar.get(5),
+				(byte) (calendar.get(11) + 1),
+				(byte) (calendar.get(12) + 1),
+				(byte) (calendar.get(13) + 1) };
+		}
+
+		private int year() {
+			return (get(0) - 100) * 100 + (get(1) - 100);
+		}
+
+		// Days since 1970-01-01 in the proleptic Gregorian calendar.
+		private long epochDay() {
+			final int month = get(2);
+			final int year = month <= 2 ? year() - 1 : year();
+			final int era = Math.floorDiv(year, 400);
+			final int yearOfEra = year - era * 400;
+			final int dayOfYear = (153 * (month + (month > 2 ? -3 : 9)) + 2) / 5 + get(3) - 1;
+			final int dayOfEra = yearOfEra * 365 + yearOfEra / 4 - yearOfEra / 100 + dayOfYear;
+			return era * 146097L + dayOfEra - 719468L;
+		}
+
+		// TIMESTAMP values carry nanoseconds in four more bytes unless they are zero.
+		private int nanos() {
+			if (encoding.remaining() < 11) {
+				return 0;
+			}
+			return get(7) << 24 | get(8) << 16 | get(9) << 8 | get(10);
+		}
+
+		private int get(int index) {
+			return Byte.toUnsignedInt(encoding.get(encoding.position() + index));
 		}
 	}
 }
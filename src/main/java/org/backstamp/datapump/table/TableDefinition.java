@@ -1,7 +1,11 @@
 package org.backstamp.datapump.table;
 
 import java.util.Arrays;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 public interface TableDefinition {
@@ -14,6 +18,8 @@ public interface TableDefinition {
 		private String ownerName;
 		private String name;
 		private List<ColumnDefinition> columns = Arrays.asList();
+		private volatile Map<String, Integer> index;
+		private final Map<Plan<?>, Object> plans = new ConcurrentHashMap<>();
 
 		public Table(String name) {
 			this.name = name;
@@ -42,6 +48,41 @@ public interface TableDefinition {
 			return ownerName;
 		}
 
+		public int indexOf(String column) {
+			Map<String, Integer> index = this.index;
+			if (index == null) {
+				index = new HashMap<>();
+				for (int i = columns.size() - 1; i >= 0; i--) {
+					String name = columns.get(i).name();
+					index.put(name, i);
+					index.put(name.toLowerCase(), i);
+				}
+				this.index = index;
+			}
+			Integer i = index.get(column);
+			if (i == null) {
+				i = index.get(column.toLowerCase());
+			}
+			return i == null ? -1 : i;
+		}
+
+		public int requireIndexOf(String column) {
+			int index = indexOf(column);
+			if (index < 0) {
+				throw new IllegalArgumentException(String.format(
+					"The table %s has no column %s.",
+					name,
+					column));
+			}
+			return index;
+		}
+
+		// Returns the plan's value, built once from this table's columns and shared by all of its rows.
+		@SuppressWarnings("unchecked")
+		public <P> P plan(Plan<P> plan) {
+			return (P) plans.computeIfAbsent(plan, i -> plan.builder.apply(this));
+		}
+
 		public String toSQL() {
 			String x = columns.stream().map(c -> c.toSQL()).collect(Collectors.joining(",\n  "));
 			return String.format("CREATE TABLE %s (\n  %s)", name, x);
@@ -53,6 +94,15 @@ public interface TableDefinition {
 			return String.format("INSERT INTO %s (%s) VALUES (%s)", name, names, binds);
 		}
 		
+		// A value built from a table's columns, told apart from other plans by identity rather than by its type.
+		public static final class Plan<P> {
+			private final Function<Table, P> builder;
+
+			public Plan(Function<Table, P> builder) {
+				this.builder = builder;
+			}
+		}
+
 		public class TableBuilder {
 			Table table;
 			
@@ -70,6 +120,8 @@ public interface TableDefinition {
 			}
 			public TableBuilder columns(List<ColumnDefinition> columns) {
 				table.columns = columns;
+				table.index = null;
+				table.plans.clear();
 				return this;
 			}
 			public Table table() {
@@ -1,9 +1,15 @@
 package org.backstamp.datapump.util;
 
+import java.io.EOFException;
 import java.io.File;
 import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.file.StandardOpenOption;
 
 public interface Reader {
 	int read1();
@@ -18,10 +24,18 @@ public interface Reader {
 
 	byte[] read(int offset, int numberOfBytes);
 
+	// The returned view is only valid until the next call to this reader.
+	ByteBuffer slice(int numberOfBytes);
+
+	// Returns a reader over the same source with a position of its own.
+	Reader cursor();
+
 	public void skip(long charsetLength);
 
 	public void seek(long l);
 
+	public long position();
+
 	public class StaticReader implements Reader {
 		long value;
 
@@ -63,13 +77,29 @@ public interface Reader {
 			return new byte[] { new Long(value).byteValue() };
 		}
 
+		@Override
+		public ByteBuffer slice(int numberOfBytes) {
+			return ByteBuffer.wrap(read(numberOfBytes));
+		}
+
+		@Override
+		public Reader cursor() {
+			return new StaticReader((int) value);
+		}
+
 		@Override
 		public void seek(long numberOfBytes) {
 		}
+
+		@Override
+		public long position() {
+			return 0L;
+		}
 	}
 
 	public class RandomAccessFileReader implements Reader, AutoCloseable {
 		private RandomAccessFile file;
+		private ByteBuffer scratch = ByteBuffer.allocate(0);
 		
 		public RandomAccessFileReader(File file) {
 			try {
@@ -138,6 +168,30 @@ public interface Reader {
 			}
 		}
 
+		@Override
+		public ByteBuffer slice(int numberOfBytes) {
+			if (scratch.capacity() < numberOfBytes) {
+				scratch = ByteBuffer.allocate(Math.max(numberOfBytes, scratch.capacity() * 2));
+			}
+			try {
+				file.read(scratch.array(), 0, numberOfBytes);
+			} catch (IOException e) {
+				throw new RuntimeException(e);
+			}
+			scratch.limit(numberOfBytes).position(0);
+			return scratch;
+		}
+
+		// A RandomAccessFile has a single file pointer, so cursors read its channel with positional reads.
+		@Override
+		public Reader cursor() {
+			return new PositionalFileReader(
+				file.getChannel(),
+				false,
+				PositionalFileReader.DEFAULT_BUFFER_SIZE,
+				1);
+		}
+
 		@Override
 		public void seek(long numberOfBytes) {
 			try {
@@ -147,9 +201,412 @@ public interface Reader {
 			}
 		}
 
+		@Override
+		public long position() {
+			try {
+				return file.getFilePointer();
+			} catch (IOException e) {
+				throw new RuntimeException(e);
+			}
+		}
+
 		@Override
 		public void close() throws Exception {
 			this.file.close();
 		}
 	}
+
+	public class MappedFileReader implements Reader, AutoCloseable {
+		// A single MappedByteBuffer is limited to Integer.MAX_VALUE bytes.
+		private static final int WINDOW_SIZE = 1 << 30;
+
+		private final FileChannel channel;
+		private final MappedByteBuffer[] windows;
+		private final ByteBuffer[] views;
+		private final int windowSize;
+		private final long size;
+		private long position;
+
+		public MappedFileReader(File file) {
+			this(file, WINDOW_SIZE);
+		}
+
+		private MappedFileReader(MappedFileReader reader) {
+			this.channel = reader.channel;
+			this.windows = reader.windows;
+			this.views = new ByteBuffer[windows.length];
+			for (int i = 0; i < windows.length; i++) {
+				views[i] = windows[i].duplicate();
+			}
+			this.windowSize = reader.windowSize;
+			this.size = reader.size;
+		}
+
+		public MappedFileReader(File file, int windowSize) {
+			try {
+				this.channel = FileChannel.open(file.toPath(), StandardOpenOption.READ);
+				this.size = channel.size();
+				this.windowSize = windowSize;
+				this.windows = new MappedByteBuffer[(int) ((size + windowSize - 1) / windowSize)];
+				this.views = new ByteBuffer[windows.length];
+				for (int i = 0; i < windows.length; i++) {
+					long start = (long) i * windowSize;
+					long length = Math.min(windowSize, size - start);
+					windows[i] = channel.map(MapMode.READ_ONLY, start, length);
+					views[i] = windows[i].duplicate();
+				}
+			} catch (IOException e) {
+				throw new RuntimeException(e);
+			}
+		}
+
+		@Override
+		public int read1() {
+			return Byte.toUnsignedInt(get(advance(1)));
+		}
+
+		@Override
+		public int read2() {
+			long offset = advance(2);
+			MappedByteBuffer window = windowFor(offset, 2);
+			if (window == null) {
+				return Byte.toUnsignedInt(get(offset)) << 8 | Byte.toUnsignedInt(get(offset + 1));
+			}
+			return Short.toUnsignedInt(window.getShort((int) (offset % windowSize)));
+		}
+
+		@Override
+		public long read4() {
+			long offset = advance(4);
+			MappedByteBuffer window = windowFor(offset, 4);
+			if (window == null) {
+				long value = 0L;
+				for (int i = 0; i < 4; i++) {
+					value = value << 8 | Byte.toUnsignedInt(get(offset + i));
+				}
+				return value;
+			}
+			return Integer.toUnsignedLong(window.getInt((int) (offset % windowSize)));
+		}
+
+		@Override
+		public long read8() {
+			long offset = advance(8);
+			MappedByteBuffer window = windowFor(offset, 8);
+			if (window == null) {
+				long value = 0L;
+				for (int i = 0; i < 8; i++) {
+					value = value << 8 | Byte.toUnsignedInt(get(offset + i));
+				}
+				return value;
+			}
+			return window.getLong((int) (offset % windowSize));
+		}
+
+		@Override
+		public byte[] read(long numberOfBytes) {
+			long offset = position;
+			int length = (int) Math.max(0L, Math.min(numberOfBytes, size - offset));
+			byte[] bytes = new byte[(int) numberOfBytes];
+			for (int copied = 0; copied < length;) {
+				long current = offset + copied;
+				ByteBuffer window = views[(int) (current / windowSize)];
+				window.limit(window.capacity()).position((int) (current % windowSize));
+				int count = Math.min(length - copied, window.remaining());
+				window.get(bytes, copied, count);
+				copied += count;
+			}
+			position += length;
+			return bytes;
+		}
+
+		@Override
+		public byte[] read(int offset, int numberOfBytes) {
+			seek(offset);
+			return read(numberOfBytes);
+		}
+
+		@Override
+		public ByteBuffer slice(int numberOfBytes) {
+			if (numberOfBytes == 0 || position + numberOfBytes > size
+				|| windowFor(position, numberOfBytes) == null) {
+				return ByteBuffer.wrap(read(numberOfBytes));
+			}
+			ByteBuffer view = views[(int) (position / windowSize)];
+			int offset = (int) (advance(numberOfBytes) % windowSize);
+			view.limit(offset + numberOfBytes).position(offset);
+			return view;
+		}
+
+		// Cursors share the mapped windows and only read them with absolute positions.
+		@Override
+		public Reader cursor() {
+			return new MappedFileReader(this);
+		}
+
+		@Override
+		public void skip(long numberOfBytes) {
+			position = Math.min(size, position + numberOfBytes);
+		}
+
+		@Override
+		public void seek(long numberOfBytes) {
+			position = numberOfBytes;
+		}
+
+		@Override
+		public long position() {
+			return position;
+		}
+
+		@Override
+		public void close() throws Exception {
+			channel.close();
+		}
+
+		private long advance(int numberOfBytes) {
+			long offset = position;
+			if (offset + numberOfBytes > size) {
+				throw new RuntimeException(new EOFException());
+			}
+			position += numberOfBytes;
+			return offset;
+		}
+
+		private byte get(long offset) {
+			return windows[(int) (offset / windowSize)].get((int) (offset % windowSize));
+		}
+
+		// Returns null for values that straddle two windows.
+		private MappedByteBuffer windowFor(long offset, int numberOfBytes) {
+			int index = (int) (offset / windowSize);
+			if (index != (int) ((offset + numberOfBytes - 1) / windowSize)) {
+				return null;
+			}
+			return windows[index];
+		}
+	}
+
+	public class PositionalFileReader implements Reader, AutoCloseable {
+		private static final int DEFAULT_BUFFER_SIZE = 8192;
+
+		private final FileChannel channel;
+		private final boolean owner;
+		private final byte[] buffer;
+		private final ByteBuffer view;
+		private final int alignment;
+		private long bufferStart;
+		private int bufferLength;
+		private long position;
+
+		public PositionalFileReader(File file) {
+			this(open(file), true, DEFAULT_BUFFER_SIZE, 1);
+		}
+
+		protected PositionalFileReader(FileChannel channel, boolean owner, int bufferSize, int alignment) {
+			this.channel = channel;
+			this.owner = owner;
+			this.buffer = new byte[bufferSize];
+			this.view = ByteBuffer.wrap(buffer);
+			this.alignment = alignment;
+		}
+
+		// Cursors share the channel and read from it with positional reads only.
+		@Override
+		public Reader cursor() {
+			return new PositionalFileReader(channel, false, buffer.length, alignment);
+		}
+
+		protected FileChannel channel() {
+			return channel;
+		}
+
+		@Override
+		public int read1() {
+			int offset = fill(1);
+			position += 1;
+			return Byte.toUnsignedInt(buffer[offset]);
+		}
+
+		@Override
+		public int read2() {
+			int offset = fill(2);
+			position += 2;
+			return Byte.toUnsignedInt(buffer[offset]) << 8
+				| Byte.toUnsignedInt(buffer[offset + 1]);
+		}
+
+		@Override
+		public long read4() {
+			int offset = fill(4);
+			position += 4;
+			return getLong(offset, 4);
+		}
+
+		@Override
+		public long read8() {
+			int offset = fill(8);
+			position += 8;
+			return getLong(offset, 8);
+		}
+
+		@Override
+		public byte[] read(long numberOfBytes) {
+			byte[] bytes = new byte[(int) numberOfBytes];
+			int copied = 0;
+			while (copied < bytes.length) {
+				if (bytes.length - copied > buffer.length) {
+					// Read past the buffer for values that would not fit within it.
+					ByteBuffer target = ByteBuffer.wrap(bytes, copied, bytes.length - copied);
+					position += readFully(target, position);
+					break;
+				}
+				int available = available();
+				if (available == 0) {
+					break;
+				}
+				int count = Math.min(bytes.length - copied, available);
+				System.arraycopy(buffer, (int) (position - bufferStart), bytes, copied, count);
+				position += count;
+				copied += count;
+			}
+			return bytes;
+		}
+
+		@Override
+		public byte[] read(int offset, int numberOfBytes) {
+			seek(offset);
+			return read(numberOfBytes);
+		}
+
+		@Override
+		public ByteBuffer slice(int numberOfBytes) {
+			// A refill starts at an aligned position, so only values smaller than the
+			// rest of the buffer past that position are guaranteed to fit.
+			if (numberOfBytes > buffer.length - alignment) {
+				return ByteBuffer.wrap(read(numberOfBytes));
+			}
+			int offset = fill(numberOfBytes);
+			position += numberOfBytes;
+			view.limit(offset + numberOfBytes).position(offset);
+			return view;
+		}
+
+		@Override
+		public void skip(long numberOfBytes) {
+			position += numberOfBytes;
+		}
+
+		@Override
+		public void seek(long numberOfBytes) {
+			position = numberOfBytes;
+		}
+
+		@Override
+		public long position() {
+			return position;
+		}
+
+		@Override
+		public void close() throws Exception {
+			if (owner) {
+				channel.close();
+			}
+		}
+
+		// Returns the offset into the buffer for the value at the current position.
+		private int fill(int numberOfBytes) {
+			long offset = position - bufferStart;
+			if (offset < 0 || offset + numberOfBytes > bufferLength) {
+				refill();
+				offset = position - bufferStart;
+				if (offset + numberOfBytes > bufferLength) {
+					throw new RuntimeException(new EOFException());
+				}
+			}
+			return (int) offset;
+		}
+
+		private int available() {
+			long offset = position - bufferStart;
+			if (offset < 0 || offset >= bufferLength) {
+				refill();
+				offset = position - bufferStart;
+			}
+			return (int) Math.max(0L, bufferLength - offset);
+		}
+
+		private void refill() {
+			bufferStart = position - position % alignment;
+			bufferLength = readFully(ByteBuffer.wrap(buffer), bufferStart);
+		}
+
+		private int readFully(ByteBuffer target, long offset) {
+			int copied = 0;
+			try {
+				for (int count; target.hasRemaining(); copied += count) {
+					count = channel.read(target, offset + copied);
+					if (count < 0) {
+						break;
+					}
+				}
+			} catch (IOException e) {
+				throw new RuntimeException(e);
+			}
+			return copied;
+		}
+
+		private long getLong(int offset, int numberOfBytes) {
+			long value = 0L;
+			for (int i = offset; i < offset + numberOfBytes; i++) {
+				value = value << 8 | Byte.toUnsignedInt(buffer[i]);
+			}
+			return value;
+		}
+
+		private static FileChannel open(File file) {
+			try {
+				return FileChannel.open(file.toPath(), StandardOpenOption.READ);
+			} catch (IOException e) {
+				throw new RuntimeException(e);
+			}
+		}
+	}
+
+	public class BufferedFileReader extends PositionalFileReader {
+		private static final int DEFAULT_BLOCK_SIZE = 4096;
+		private static final int DEFAULT_NUMBER_OF_BLOCKS = 64;
+
+		private final int blockSize;
+		private final int numberOfBlocks;
+
+		public BufferedFileReader(File file) {
+			this(file, DEFAULT_BLOCK_SIZE, DEFAULT_NUMBER_OF_BLOCKS);
+		}
+
+		public BufferedFileReader(File file, int blockSize, int numberOfBlocks) {
+			this(PositionalFileReader.open(file), true, blockSize, numberOfBlocks);
+		}
+
+		private BufferedFileReader(FileChannel channel, boolean owner, int blockSize, int numberOfBlocks) {
+			super(channel, owner, bufferSize(blockSize, numberOfBlocks), blockSize);
+			this.blockSize = blockSize;
+			this.numberOfBlocks = numberOfBlocks;
+		}
+
+		@Override
+		public Reader cursor() {
+			return new BufferedFileReader(channel(), false, blockSize, numberOfBlocks);
+		}
+
+		private static int bufferSize(int blockSize, int numberOfBlocks) {
+			if (blockSize < 16 || numberOfBlocks < 2) {
+				throw new IllegalArgumentException(String.format(
+					"The buffer cannot hold %d blocks of %d bytes.",
+					numberOfBlocks,
+					blockSize));
+			}
+			return Math.multiplyExact(blockSize, numberOfBlocks);
+		}
+	}
 }
@@ -15,7 +15,7 @@ public interface Value<T> {
 			this.value = Optional.empty();
 		}
 
-		public Optional<T> value() {
+		public synchronized Optional<T> value() {
 			if (!value.isPresent()) {
 				value = Optional.ofNullable(supplier.get());
 			}
@@ -1,6 +1,7 @@
 package org.backstamp.datapump.xml;
 
 import java.io.InputStream;
+import java.nio.charset.Charset;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Date;
@@ -14,6 +15,7 @@ import javax.xml.stream.XMLInputFactory;
 import javax.xml.stream.XMLStreamException;
 import javax.xml.stream.XMLStreamReader;
 
+import org.backstamp.datapump.DataPumpFileReader.CharacterSet;
 import org.backstamp.datapump.table.ColumnDataType;
 import org.backstamp.datapump.table.ColumnDefinition;
 import org.backstamp.datapump.table.ColumnDataType.DefaultDataType;
@@ -44,8 +46,15 @@ public interface XMLStreamCursor<T> {
 		}
 
 		public Optional<Table> apply(InputStream inputStream) throws XMLStreamException {
+			return apply(inputStream, null);
+		}
+
+		// Reads a document in the given encoding, or the one it declares when that is null.
+		public Optional<Table> apply(InputStream inputStream, String encoding) throws XMLStreamException {
 			XMLInputFactory factory = XMLInputFactory.newInstance();
-			XMLStreamReader reader = factory.createXMLStreamReader(inputStream);
+			XMLStreamReader reader = encoding == null
+				? factory.createXMLStreamReader(inputStream)
+				: factory.createXMLStreamReader(inputStream, encoding);
 			Optional<Table> optional = apply(reader);
 			reader.close();
 			return optional;
@@ -56,12 +65,14 @@ public interface XMLStreamCursor<T> {
 	public class TableCursor implements XMLStreamCursor<Table> {
 
 		String charset;
+		String nationalCharset;
 		String name;
 		String ownerName;
 
 		public Consumer<String> withNodeName(String nodeName) {
 			switch (nodeName) {
 				case "CHARSET": return t -> charset = t;
+				case "NCHARSET": return t -> nationalCharset = t;
 				// case "ENDIANNESS": return t -> {};
 				case "NAME": return t -> name = t;
 				case "OWNER_NAME": return t -> ownerName = t;
@@ -84,7 +95,9 @@ public interface XMLStreamCursor<T> {
 				case XMLStreamReader.START_ELEMENT:
 					consumer = withNodeName(reader.getLocalName());
 					if ("COL_LIST".equals(reader.getLocalName())) {
-						columns = new ColumnListCursor().apply(reader);
+						columns = new ColumnListCursor(
+							charset(charset),
+							charset(nationalCharset)).apply(reader);
 					}
 					break;
 				case XMLStreamReader.END_ELEMENT:
@@ -107,17 +120,40 @@ public interface XMLStreamCursor<T> {
 				.columns(columns)
 				.table();
 		}
+
+		// The database's character set, which precedes the columns, for those that do not record their own.
+		private static Charset charset(String name) {
+			return Optional.ofNullable(name)
+				.flatMap(CharacterSet::charset)
+				.orElse(Charset.defaultCharset());
+		}
 	}
 
 	public class ColumnCursor implements XMLStreamCursor<ColumnDefinition> {
+		private static final int AL16UTF16 = 2000;
+		private static final String NATIONAL = "2";
+
+		private final Charset databaseCharset;
+		private final Charset nationalCharset;
 
 		String name;
 		String type;
 		String length;
 		String precision;
 		String scale;
+		String charsetId;
+		String charsetForm;
 		boolean nullable;
 
+		public ColumnCursor() {
+			this(Charset.defaultCharset(), Charset.defaultCharset());
+		}
+
+		public ColumnCursor(Charset databaseCharset, Charset nationalCharset) {
+			this.databaseCharset = databaseCharset;
+			this.nationalCharset = nationalCharset;
+		}
+
 		public Consumer<String> withNodeName(String nodeName) {
 			switch (nodeName) {
 			case "NAME": return t -> name = t;
@@ -126,10 +162,28 @@ public interface XMLStreamCursor<T> {
 			case "NOT_NULL": return t -> nullable = "0".equals(t); // 0, 1, 2?
 			case "PRECISION_NUM": return t -> precision = t;
 			case "SCALE": return t -> scale = t;
+			case "CHARSETID": return t -> charsetId = t;
+			case "CHARSETFORM": return t -> charsetForm = t;
 			default: return t -> {};
 			}
 		}
 
+		// The column's own character set, which differs from the table's for NCHAR and NVARCHAR2.
+		private Charset charset() {
+			return Optional.ofNullable(charsetId)
+				.flatMap(i -> CharacterSet.charset(Integer.parseInt(i)))
+				.orElse(NATIONAL.equals(charsetForm) ? nationalCharset : databaseCharset);
+		}
+
+		// NCLOBs, and the CLOBs of a database with a multibyte character set, are stored in AL16UTF16.
+		private Charset lobCharset() {
+			Charset charset = charset();
+			if (NATIONAL.equals(charsetForm) || charset.newEncoder().maxBytesPerChar() > 1) {
+				return CharacterSet.charset(AL16UTF16).get();
+			}
+			return charset;
+		}
+
 		public ColumnDefinition apply(XMLStreamReader reader) throws XMLStreamException {
 
 			Consumer<String> unassignedConsumer = t -> {};
@@ -167,9 +221,9 @@ public interface XMLStreamCursor<T> {
 			case "1": // VARCHAR
 				return new ColumnDefinition.StringColumn(name, ColumnDataType.VARCHAR2
 							.length(Integer.parseInt(length))
-							.nullable(nullable));
+							.nullable(nullable), charset());
 			case "2": // NUMBER
-				ColumnDataType<Long> numericType = new DefaultDataType<Long>("number", Long.class);
+				ColumnDataType<Number> numericType = ColumnDataType.NUMBER;
 				if (!Objects.isNull(precision)
 					&& !Objects.isNull(scale)) {
 					numericType = numericType.precision(
@@ -182,6 +236,10 @@ public interface XMLStreamCursor<T> {
 				return new ColumnDefinition.TimestampColumn(name, new DefaultDataType<Date>("date",
 					Date.class)
 						.nullable(nullable));
+			case "180": // TIMESTAMP
+				return new ColumnDefinition.TimestampColumn(name, new DefaultDataType<Date>("timestamp",
+					Date.class)
+						.nullable(nullable));
 			case "23": // RAW
 				return new ColumnDefinition.RawColumn(name, new DefaultDataType<byte[]>("raw",
 					byte[].class)
@@ -189,12 +247,12 @@ public interface XMLStreamCursor<T> {
 			case "96": // CHAR
 				return new ColumnDefinition.StringColumn(name, ColumnDataType.VARCHAR
 						.length(Integer.parseInt(length))
-						.nullable(nullable));
+						.nullable(nullable), charset());
 			case "112": // CLOB
-				return new ColumnDefinition.RawColumn(name, new DefaultDataType<byte[]>("clob",
+				return new ColumnDefinition.ClobColumn(name, new DefaultDataType<byte[]>("clob",
 					byte[].class)
 						.nullable(nullable)
-						.length(Integer.parseInt(length)));
+						.length(Integer.parseInt(length)), lobCharset());
 			case "113": // BLOB
 				return new ColumnDefinition.RawColumn(name, new DefaultDataType<byte[]>("blob",
 					byte[].class)
@@ -210,6 +268,17 @@ public interface XMLStreamCursor<T> {
 	}
 
 	public class ColumnListCursor implements XMLStreamCursor<Iterable<ColumnDefinition>> {
+		private final Charset databaseCharset;
+		private final Charset nationalCharset;
+
+		public ColumnListCursor() {
+			this(Charset.defaultCharset(), Charset.defaultCharset());
+		}
+
+		public ColumnListCursor(Charset databaseCharset, Charset nationalCharset) {
+			this.databaseCharset = databaseCharset;
+			this.nationalCharset = nationalCharset;
+		}
 
 		public List<ColumnDefinition> apply(XMLStreamReader reader) throws XMLStreamException {
 			QName qualifiedName = reader.getName();
@@ -221,7 +290,8 @@ public interface XMLStreamCursor<T> {
 				switch (code) {
 				case XMLStreamReader.START_ELEMENT:
 					if ("COL_LIST_ITEM".equals(reader.getLocalName())) {
-						list.add(new ColumnCursor().apply(reader));
+						list.add(new ColumnCursor(databaseCharset, nationalCharset)
+							.apply(reader));
 					}
 					break;
 				case XMLStreamReader.END_ELEMENT:
@@ -1,18 +1,76 @@
 package org.backstamp.datapump;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.RandomAccessFile;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.sql.Blob;
+import java.sql.Clob;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
 import java.util.Objects;
+import java.util.Optional;
+import java.util.Spliterator;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.Predicate;
 import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 
+import org.backstamp.datapump.DataPumpFile.Extraction;
+import org.backstamp.datapump.DataPumpFileReader.CharacterSet;
+import org.backstamp.datapump.DataPumpTable.Checkpoint;
+import org.backstamp.datapump.DataPumpTable.ResumableIterator;
+import org.backstamp.datapump.io.LobStore;
 import org.backstamp.datapump.io.TemporaryFile;
+import org.backstamp.datapump.row.FieldPredicate;
 import org.backstamp.datapump.row.MasterTableRow;
+import org.backstamp.datapump.row.RowBatch;
+import org.backstamp.datapump.row.ColumnVector.BytesVector;
+import org.backstamp.datapump.row.ColumnVector.DecimalVector;
+import org.backstamp.datapump.row.ColumnVector.LongVector;
+import org.backstamp.datapump.row.RowCursor;
+import org.backstamp.datapump.row.RowIndex;
+import org.backstamp.datapump.row.TableRow;
+import org.backstamp.datapump.table.ColumnDefinition.StringColumn;
+import org.backstamp.datapump.table.TableDefinition.Table;
+import org.backstamp.datapump.util.Reader;
 
 import junit.framework.TestCase;
 
 public class DataPumpFileTest extends TestCase {
 
+	/**
+	 * Test that string columns use the character set recorded for them in the export.
+	 * @throws Exception
+	 */
+	public void testScottCharacterSets() throws Exception {
+		ClassLoader cl = Thread.currentThread().getContextClassLoader();
+		try (TemporaryFile file = new TemporaryFile(cl.getResourceAsStream("scott.dmp"));) {
+			DataPumpFile dumpFile = new DataPumpFile(file.toFile());
+			assertEquals("AL32UTF8", dumpFile.characterSet());
+			assertEquals(StandardCharsets.UTF_8, CharacterSet.charset(873).get());
+			assertEquals(StandardCharsets.UTF_16BE, CharacterSet.charset(2000).get());
+
+			Table table = dumpFile.tableWithName("EMP").get();
+			assertEquals(StandardCharsets.UTF_8, ((StringColumn) table.columns().get(1)).charset());
+		}
+	}
+
 	/**
 	 * Test that we can extract the version and other details about the export.
 	 * @throws Exception
@@ -122,4 +180,908 @@ public class DataPumpFileTest extends TestCase {
 			assertEquals(names, "DEPT, EMP, SALGRADE");
 		}
 	}
+
+	/**
+	 * Test that tables read through a memory-mapped file match those read through the
+	 * default reader.
+	 * @throws Exception
+	 */
+	public void testScottTablesWithMappedReader() throws Exception {
+		ClassLoader cl = Thread.currentThread().getContextClassLoader();
+		try (TemporaryFile file = new TemporaryFile(cl.getResourceAsStream("scott.dmp"));) {
+
+			DataPumpFile dumpFile = new DataPumpFile(file.toFile(), Reader.MappedFileReader::new);
+			String rows = dumpFile.tableWithName("EMP").rows()
+					.map(i -> i.toString())
+					.collect(Collectors.joining("\n"));
+			String expected = new DataPumpFile(file.toFile()).tableWithName("EMP").rows()
+					.map(i -> i.toString())
+					.collect(Collectors.joining("\n"));
+			assertEquals(expected, rows);
+		}
+	}
+
+	/**
+	 * Test that tables read through a block-aligned buffer match those read through the
+	 * default reader.
+	 * @throws Exception
+	 */
+	public void testScottTablesWithBufferedReader() throws Exception {
+		ClassLoader cl = Thread.currentThread().getContextClassLoader();
+		try (TemporaryFile file = new TemporaryFile(cl.getResourceAsStream("scott.dmp"));) {
+
+			DataPumpFile dumpFile = DataPumpFile.withBufferedReader(file.toFile(), 2);
+			String rows = dumpFile.tables()
+					.flatMap(t -> t.rows())
+					.map(i -> i.toString())
+					.collect(Collectors.joining("\n"));
+			String expected = new DataPumpFile(file.toFile()).tables()
+					.flatMap(t -> t.rows())
+					.map(i -> i.toString())
+					.collect(Collectors.joining("\n"));
+			assertEquals(expected, rows);
+		}
+	}
+
+	/**
+	 * Test that each iterator over a table keeps its own position, so that tables can be
+	 * read more than once, interleaved or in parallel.
+	 * @throws Exception
+	 */
+	public void testScottTablesWithConcurrentIterators() throws Exception {
+		ClassLoader cl = Thread.currentThread().getContextClassLoader();
+		try (TemporaryFile file = new TemporaryFile(cl.getResourceAsStream("scott.dmp"));) {
+
+			DataPumpFile dumpFile = new DataPumpFile(file.toFile());
+			DataPumpTable<TableRow> table = dumpFile.tableWithName("DEPT");
+			Iterator<TableRow> a = table.iterator();
+			Iterator<TableRow> b = table.iterator();
+			assertEquals(a.next().toString(), b.next().toString());
+			assertEquals("30,SALES,CHICAGO", dumpFile.tableWithName("DEPT").rows()
+					.skip(2)
+					.findFirst()
+					.get()
+					.toString());
+			assertEquals("20,RESEARCH,DALLAS", a.next().toString());
+			assertEquals("20,RESEARCH,DALLAS", b.next().toString());
+
+			String expected = dumpFile.tables()
+					.flatMap(t -> t.rows())
+					.map(i -> i.toString())
+					.sorted()
+					.collect(Collectors.joining("\n"));
+			String rows = new DataPumpFile(file.toFile(), Reader.RandomAccessFileReader::new).tables()
+					.parallel()
+					.flatMap(t -> t.rows())
+					.map(i -> i.toString())
+					.sorted()
+					.collect(Collectors.joining("\n"));
+			assertEquals(expected, rows);
+		}
+	}
+
+	/**
+	 * Test that every table is extracted into its own sink on a pool of worker threads.
+	 * @throws Exception
+	 */
+	public void testScottParallelExtraction() throws Exception {
+		ClassLoader cl = Thread.currentThread().getContextClassLoader();
+		try (TemporaryFile file = new TemporaryFile(cl.getResourceAsStream("scott.dmp"));) {
+
+			Map<String, List<String>> sinks = new ConcurrentHashMap<>();
+			DataPumpFile dumpFile = new DataPumpFile(file.toFile());
+			List<Extraction> extractions = dumpFile.extract(2, t -> {
+				List<String> rows = new ArrayList<>();
+				sinks.put(t.get().name(), rows);
+				return row -> rows.add(row.toString());
+			});
+
+			assertEquals(
+				"DEPT=4, EMP=14, SALGRADE=5",
+				extractions.stream()
+					.map(i -> i.tableName() + "=" + i.rows())
+					.sorted()
+					.collect(Collectors.joining(", ")));
+			assertEquals(
+				"[10,ACCOUNTING,NEW YORK, 20,RESEARCH,DALLAS, 30,SALES,CHICAGO, 40,OPERATIONS,BOSTON]",
+				sinks.get("DEPT").toString());
+			assertEquals(5, sinks.get("SALGRADE").size());
+		}
+	}
+
+	/**
+	 * Test that a table whose sink fails stops the extraction of the others before
+	 * its exception reaches the caller, unwrapped.
+	 * @throws Exception
+	 */
+	public void testScottFailedExtraction() throws Exception {
+		ClassLoader cl = Thread.currentThread().getContextClassLoader();
+		try (TemporaryFile file = new TemporaryFile(cl.getResourceAsStream("scott.dmp"));) {
+
+			IllegalStateException failure = new IllegalStateException("DEPT");
+			CountDownLatch started = new CountDownLatch(2);
+			AtomicInteger delivered = new AtomicInteger();
+			AtomicInteger interrupted = new AtomicInteger();
+			DataPumpFile dumpFile = new DataPumpFile(file.toFile());
+			try {
+				// The other sinks block on their first row until the failure interrupts them.
+				dumpFile.extract(3, t -> "DEPT".equals(t.get().name())
+					? row -> {
+						try {
+							started.await();
+						} catch (InterruptedException e) {
+							Thread.currentThread().interrupt();
+						}
+						throw failure;
+					}
+					: row -> {
+						delivered.incrementAndGet();
+						started.countDown();
+						try {
+							new CountDownLatch(1).await();
+						} catch (InterruptedException e) {
+							interrupted.incrementAndGet();
+							Thread.currentThread().interrupt();
+						}
+					});
+				fail("The DEPT sink fails.");
+			} catch (IllegalStateException e) {
+				assertSame(failure, e);
+			}
+			assertEquals(2, delivered.get());
+			assertEquals(2, interrupted.get());
+		}
+	}
+
+	/**
+	 * Test that a parallel stream over a single table splits it at row boundaries and
+	 * yields the same rows, in the same order, as a sequential one, whether the
+	 * boundaries are walked to as it is split or come from an index.
+	 * @throws Exception
+	 */
+	public void testScottParallelRows() throws Exception {
+		ClassLoader cl = Thread.currentThread().getContextClassLoader();
+		try (TemporaryFile file = new TemporaryFile(cl.getResourceAsStream("scott.dmp"));) {
+
+			DataPumpFile dumpFile = new DataPumpFile(file.toFile());
+			DataPumpTable<MasterTableRow> table = dumpFile.masterTable();
+			List<String> expected = table.rows()
+					.map(i -> i.objectName() + Objects.toString(i.xmlString()))
+					.collect(Collectors.toList());
+			List<String> rows = table.rows()
+					.parallel()
+					.map(i -> i.objectName() + Objects.toString(i.xmlString()))
+					.collect(Collectors.toList());
+			assertEquals(1272, rows.size());
+			assertEquals(expected, rows);
+
+			// Without an index, each split walks past a batch of rows, larger than the one before.
+			Spliterator<MasterTableRow> rest = table.rows().spliterator();
+			Spliterator<MasterTableRow> first = rest.trySplit();
+			Spliterator<MasterTableRow> second = rest.trySplit();
+			assertEquals(256L, first.getExactSizeIfKnown());
+			assertEquals(512L, second.getExactSizeIfKnown());
+			assertEquals(-1L, rest.getExactSizeIfKnown());
+			assertNull(first.trySplit());
+			List<String> split = new ArrayList<>();
+			for (Spliterator<MasterTableRow> i : Arrays.asList(first, second, rest)) {
+				i.forEachRemaining(row -> split.add(
+					row.objectName() + Objects.toString(row.xmlString())));
+			}
+			assertEquals(expected, split);
+
+			DataPumpTable<TableRow> emp = dumpFile.tableWithName("EMP");
+			Spliterator<TableRow> spliterator = emp.indexed(emp.buildIndex(1)).rows().spliterator();
+			Spliterator<TableRow> prefix = spliterator.trySplit();
+			assertEquals(14L, prefix.estimateSize() + spliterator.estimateSize());
+			assertTrue(prefix.tryAdvance(i -> assertTrue(i.toString().startsWith("7369,SMITH"))));
+			assertTrue(spliterator.tryAdvance(i -> assertTrue(i.toString().startsWith("7788,SCOTT"))));
+		}
+	}
+
+	/**
+	 * Test that row streams are sized exactly from the index of a table, and only
+	 * estimated from the master table's count of completed rows.
+	 * @throws Exception
+	 */
+	public void testScottSizedRows() throws Exception {
+		ClassLoader cl = Thread.currentThread().getContextClassLoader();
+		try (TemporaryFile file = new TemporaryFile(cl.getResourceAsStream("scott.dmp"));) {
+
+			DataPumpFile dumpFile = new DataPumpFile(file.toFile());
+			DataPumpTable<TableRow> table = dumpFile.tableWithName("EMP");
+			assertEquals(14L, table.masterRow().get().completedRows());
+
+			Spliterator<TableRow> spliterator = table.rows().spliterator();
+			assertFalse(spliterator.hasCharacteristics(Spliterator.SIZED));
+			assertEquals(14L, spliterator.estimateSize());
+
+			spliterator = table.indexed(table.buildIndex(4)).rows().spliterator();
+			assertTrue(spliterator.hasCharacteristics(Spliterator.SIZED));
+			assertEquals(14L, spliterator.getExactSizeIfKnown());
+			spliterator.tryAdvance(i -> {});
+			assertEquals(13L, spliterator.getExactSizeIfKnown());
+
+			assertEquals(14, table.rows().toArray().length);
+			assertEquals(-1L, dumpFile.masterTable().rows().spliterator().getExactSizeIfKnown());
+		}
+	}
+
+	/**
+	 * Test that a row cursor reads the same values as the row iterator.
+	 * @throws Exception
+	 */
+	public void testScottRowCursor() throws Exception {
+		ClassLoader cl = Thread.currentThread().getContextClassLoader();
+		try (TemporaryFile file = new TemporaryFile(cl.getResourceAsStream("scott.dmp"));
+			Reader.PositionalFileReader reader = new Reader.PositionalFileReader(file.toFile());) {
+
+			// The EMP table data starts at block 19.
+			DataPumpTable<TableRow> table = new DataPumpTable<>(reader, 19 * 4096, TableRow::new);
+			RowCursor cursor = table.cursor();
+			long salaries = 0L;
+			int commissions = 0;
+			StringBuilder names = new StringBuilder();
+			for (TableRow row : table) {
+				assertTrue(cursor.next());
+				assertEquals(row.toString(), IntStream.range(0, cursor.table().columns().size())
+					.mapToObj(i -> Objects.toString(cursor.getObject(i), ""))
+					.collect(Collectors.joining(",")));
+				salaries += cursor.getLong(5);
+				commissions += cursor.isNull(6) ? 0 : 1;
+				names.append(cursor.getString(1).charAt(0));
+				assertEquals(cursor.getString(1), new String(cursor.getBytes(1)));
+			}
+			assertFalse(cursor.next());
+			assertEquals(29025L, salaries);
+			assertEquals(4, commissions);
+			assertEquals("SAWJMBCSKTAJFM", names.toString());
+		}
+	}
+
+	/**
+	 * Test that batches hold the same values as the row iterator, column by column.
+	 * @throws Exception
+	 */
+	public void testScottBatches() throws Exception {
+		ClassLoader cl = Thread.currentThread().getContextClassLoader();
+		try (TemporaryFile file = new TemporaryFile(cl.getResourceAsStream("scott.dmp"));
+			Reader.PositionalFileReader reader = new Reader.PositionalFileReader(file.toFile());) {
+
+			// The EMP table data starts at block 19.
+			DataPumpTable<TableRow> table = new DataPumpTable<>(reader, 19 * 4096, TableRow::new);
+			List<RowBatch> batches = table.batches(5).collect(Collectors.toList());
+			assertEquals(Arrays.asList(5, 5, 4), batches.stream()
+				.map(RowBatch::size)
+				.collect(Collectors.toList()));
+
+			long employees = 0L;
+			BigDecimal salaries = BigDecimal.ZERO;
+			int commissions = 0;
+			for (RowBatch batch : batches) {
+				LongVector number = batch.longs(0);
+				DecimalVector salary = batch.decimals(5);
+				DecimalVector commission = batch.decimals(6);
+				for (int i = 0; i < batch.size(); i++) {
+					employees += number.values()[i];
+					salaries = salaries.add(salary.get(i));
+					commissions += commission.isNull(i) ? 0 : 1;
+				}
+			}
+			assertEquals(108172L, employees);
+			assertEquals(0, new BigDecimal("29025").compareTo(salaries));
+			assertEquals(4, commissions);
+
+			List<TableRow> rows = new ArrayList<>();
+			table.forEach(rows::add);
+			StringBuilder expected = new StringBuilder();
+			StringBuilder actual = new StringBuilder();
+			for (RowBatch batch : batches) {
+				BytesVector name = batch.bytes(1);
+				LongVector hired = batch.longs(4);
+				for (int i = 0; i < batch.size(); i++) {
+					actual.append(name.getString(i)).append(new Date(hired.get(i))).append(',');
+				}
+			}
+			for (TableRow row : rows) {
+				String[] fields = row.toString().split(",");
+				expected.append(fields[1]).append(fields[4]).append(',');
+			}
+			assertEquals(expected.toString(), actual.toString());
+
+			try {
+				batches.get(0).longs(1);
+				fail("ENAME is not a NUMBER column.");
+			} catch (IllegalArgumentException e) {
+				// Expected.
+			}
+		}
+	}
+
+	/**
+	 * Test that a projection decodes only the named columns.
+	 * @throws Exception
+	 */
+	public void testScottProjection() throws Exception {
+		ClassLoader cl = Thread.currentThread().getContextClassLoader();
+		try (TemporaryFile file = new TemporaryFile(cl.getResourceAsStream("scott.dmp"));
+			Reader.PositionalFileReader reader = new Reader.PositionalFileReader(file.toFile());) {
+
+			// The EMP table data starts at block 19.
+			DataPumpTable<TableRow> table = new DataPumpTable<>(reader, 19 * 4096, TableRow::new);
+			List<String> rows = table.rows("ename", "SAL")
+				.map(TableRow::toString)
+				.collect(Collectors.toList());
+			assertEquals(14, rows.size());
+			assertEquals(",SMITH,,,,800,,", rows.get(0));
+			assertEquals(",MILLER,,,,1300,,", rows.get(13));
+			assertEquals(rows, table.rows("ENAME", "SAL")
+				.parallel()
+				.map(TableRow::toString)
+				.collect(Collectors.toList()));
+
+			RowCursor cursor = table.cursor("DEPTNO");
+			assertTrue(cursor.next());
+			assertTrue(cursor.isNull(0));
+			assertEquals(20L, cursor.getLong(7));
+
+			try {
+				table.rows("SALARY");
+				fail("EMP has no SALARY column.");
+			} catch (IllegalArgumentException e) {
+				// Expected.
+			}
+		}
+	}
+
+	/**
+	 * Test that rows decoded lazily hold the same values as rows decoded up front.
+	 * @throws Exception
+	 */
+	public void testScottLazyRows() throws Exception {
+		ClassLoader cl = Thread.currentThread().getContextClassLoader();
+		try (TemporaryFile file = new TemporaryFile(cl.getResourceAsStream("scott.dmp"));) {
+			DataPumpFile dumpFile = new DataPumpFile(file.toFile());
+			DataPumpTable<MasterTableRow> table = dumpFile.masterTable();
+
+			List<MasterTableRow> eager = table.rows().collect(Collectors.toList());
+			List<MasterTableRow> lazy = table.lazyRows().collect(Collectors.toList());
+			assertEquals(eager.size(), lazy.size());
+			for (int i = 0; i < eager.size(); i++) {
+				assertEquals(eager.get(i).name(), lazy.get(i).name());
+				assertEquals(eager.get(i).processOrder(), lazy.get(i).processOrder());
+				assertEquals(eager.get(i).xmlString(), lazy.get(i).xmlString());
+				assertEquals(eager.get(i).targetXMLString(), lazy.get(i).targetXMLString());
+			}
+
+			// Lazy rows may be shared between threads that read the same fields.
+			List<MasterTableRow> shared = table.lazyRows()
+				.filter(i -> i.processOrder() > 0)
+				.collect(Collectors.toList());
+			List<String> expected = table.rowsMatching(i -> i.processOrder() > 0)
+				.map(MasterTableRow::xmlString)
+				.collect(Collectors.toList());
+			IntStream.range(0, 4).parallel().forEach(j -> assertEquals(expected, shared.stream()
+				.map(MasterTableRow::xmlString)
+				.collect(Collectors.toList())));
+
+			DataPumpTable<TableRow> employees = dumpFile.tableWithName("EMP");
+			assertEquals(
+				employees.rows().map(TableRow::toString).collect(Collectors.toList()),
+				employees.lazyRows().map(TableRow::toString).collect(Collectors.toList()));
+			assertEquals(
+				employees.rows().mapToInt(TableRow::hashCode).sum(),
+				employees.lazyRows().mapToInt(TableRow::hashCode).sum());
+		}
+	}
+
+	/**
+	 * Test that rows tested with their fields still encoded match the rows a filter
+	 * over decoded rows selects, and that their LOBs are read by the time they are
+	 * returned.
+	 * @throws Exception
+	 */
+	public void testScottRowsMatching() throws Exception {
+		ClassLoader cl = Thread.currentThread().getContextClassLoader();
+		try (TemporaryFile file = new TemporaryFile(cl.getResourceAsStream("scott.dmp"));) {
+			Predicate<MasterTableRow> predicate = i -> i.processOrder() > 0;
+			List<String> expected;
+			List<MasterTableRow> rows;
+			try (Reader.PositionalFileReader reader = new Reader.PositionalFileReader(file.toFile())) {
+				// The master table data starts at block 24.
+				DataPumpTable<MasterTableRow> table = new DataPumpTable<>(
+					reader, 24 * 4096, MasterTableRow::new);
+				expected = table.rows()
+					.filter(predicate)
+					.map(i -> i.objectName() + i.processOrder() + i.xmlString())
+					.collect(Collectors.toList());
+				rows = table.rowsMatching(predicate).collect(Collectors.toList());
+			}
+			assertFalse(expected.isEmpty());
+			assertEquals(expected, rows.stream()
+				.map(i -> i.objectName() + i.processOrder() + i.xmlString())
+				.collect(Collectors.toList()));
+		}
+	}
+
+	/**
+	 * Test that tests on encoded fields select the same rows as tests on decoded values.
+	 * @throws Exception
+	 */
+	public void testScottRowsWhere() throws Exception {
+		ClassLoader cl = Thread.currentThread().getContextClassLoader();
+		try (TemporaryFile file = new TemporaryFile(cl.getResourceAsStream("scott.dmp"));
+			Reader.PositionalFileReader reader = new Reader.PositionalFileReader(file.toFile());) {
+
+			// The EMP table data starts at block 19.
+			DataPumpTable<TableRow> table = new DataPumpTable<>(reader, 19 * 4096, TableRow::new);
+			Date from = java.sql.Date.valueOf("1981-01-01");
+			Date to = java.sql.Date.valueOf("1981-12-31");
+			List<String> expected = new ArrayList<>();
+			List<String> unpaid = new ArrayList<>();
+			RowCursor cursor = table.cursor();
+			while (cursor.next()) {
+				Date hired = (Date) cursor.getObject(4);
+				if (!hired.before(from) && !hired.after(to)
+					&& cursor.getLong(5) >= 1250L && cursor.getLong(5) <= 3000L
+					&& (cursor.getLong(7) == 10L || cursor.getLong(7) == 30L)) {
+					expected.add(cursor.getString(1));
+				}
+				if (cursor.isNull(6)) {
+					unpaid.add(cursor.getString(1));
+				}
+			}
+			assertEquals(expected, table.rowsWhere(
+					FieldPredicate.between("HIREDATE", from, to),
+					FieldPredicate.between("SAL", 1250L, 3000L),
+					FieldPredicate.in("DEPTNO", 30L, 10L))
+				.map(row -> row.toString().split(",")[1])
+				.collect(Collectors.toList()));
+			assertEquals(unpaid, table.rowsWhere(FieldPredicate.isNull("COMM"))
+				.map(row -> row.toString().split(",")[1])
+				.collect(Collectors.toList()));
+			assertEquals(Arrays.asList("SCOTT"), table.rowsWhere(FieldPredicate.equalTo("EMPNO", 7788L))
+				.map(row -> row.toString().split(",")[1])
+				.collect(Collectors.toList()));
+			assertFalse(expected.isEmpty());
+			assertEquals(10, unpaid.size());
+
+			try {
+				table.rowsWhere(FieldPredicate.equalTo("ENAME", 7788L));
+				fail("ENAME is not a NUMBER column.");
+			} catch (IllegalArgumentException e) {
+				// Expected.
+			}
+		}
+	}
+
+	/**
+	 * Test that the values of an interned column are shared from row to row of a
+	 * cursor, but not between cursors.
+	 * @throws Exception
+	 */
+	public void testScottInterned() throws Exception {
+		ClassLoader cl = Thread.currentThread().getContextClassLoader();
+		try (TemporaryFile file = new TemporaryFile(cl.getResourceAsStream("scott.dmp"));
+			Reader.PositionalFileReader reader = new Reader.PositionalFileReader(file.toFile());) {
+
+			// The EMP table data starts at block 19.
+			DataPumpTable<TableRow> table = new DataPumpTable<>(reader, 19 * 4096, TableRow::new);
+			Map<String, String> jobs = new HashMap<>();
+			RowCursor cursor = table.intern(16, "JOB").cursor();
+			int rows = 0;
+			while (cursor.next()) {
+				String job = cursor.getString(2);
+				assertSame(jobs.computeIfAbsent(job, i -> job), job);
+				rows++;
+			}
+			assertEquals(14, rows);
+			assertEquals(5, jobs.size());
+
+			// Each cursor keeps a dictionary of its own.
+			RowCursor other = table.cursor();
+			assertTrue(other.next());
+			assertNotSame(jobs.get(other.getString(2)), other.getString(2));
+
+			try {
+				table.intern(16, "SAL");
+				fail("SAL is not a string column.");
+			} catch (IllegalArgumentException e) {
+				// Expected.
+			}
+		}
+	}
+
+	/**
+	 * Test that LOBs read from their chunks in the file, as streams or as handles kept
+	 * after the cursor has moved on, hold the same bytes as LOBs gathered up front.
+	 * @throws Exception
+	 */
+	public void testScottLobs() throws Exception {
+		ClassLoader cl = Thread.currentThread().getContextClassLoader();
+		try (TemporaryFile file = new TemporaryFile(cl.getResourceAsStream("scott.dmp"));) {
+			DataPumpFile dumpFile = new DataPumpFile(file.toFile());
+			DataPumpTable<MasterTableRow> table = dumpFile.masterTable();
+			int column = table.get().indexOf("XML_CLOB");
+
+			List<byte[]> expected = new ArrayList<>();
+			List<Blob> blobs = new ArrayList<>();
+			RowCursor cursor = table.cursor();
+			while (cursor.next()) {
+				if (cursor.isNull(column)) {
+					assertNull(cursor.getBlob(column));
+					continue;
+				}
+				byte[] bytes = cursor.getBytes(column);
+				expected.add(bytes);
+				blobs.add(cursor.getBlob(column));
+				assertEquals(bytes.length, cursor.getBuffer(column).remaining());
+				try (InputStream stream = cursor.getBinaryStream(column)) {
+					assertTrue(Arrays.equals(bytes, toArray(stream)));
+				}
+				assertTrue(cursor.getClob(column).getSubString(1, 5).startsWith("<?xml"));
+			}
+			assertFalse(expected.isEmpty());
+			for (int i = 0; i < blobs.size(); i++) {
+				byte[] bytes = expected.get(i);
+				Blob blob = blobs.get(i);
+				assertEquals(bytes.length, blob.length());
+				assertTrue(Arrays.equals(bytes, blob.getBytes(1, bytes.length)));
+				assertTrue(Arrays.equals(Arrays.copyOfRange(bytes, 100, 150), blob.getBytes(101, 50)));
+			}
+
+			try {
+				cursor.getBlob(table.get().indexOf("NAME"));
+				fail("NAME is not a LOB column.");
+			} catch (IllegalArgumentException e) {
+				// Expected.
+			}
+		}
+	}
+
+	/**
+	 * Test that a cursor reads a CLOB as a string in the character set it is stored in,
+	 * and refuses to read the bytes of a RAW column as one.
+	 * @throws Exception
+	 */
+	public void testScottClobStrings() throws Exception {
+		ClassLoader cl = Thread.currentThread().getContextClassLoader();
+		try (TemporaryFile file = new TemporaryFile(cl.getResourceAsStream("scott.dmp"));) {
+			DataPumpFile dumpFile = new DataPumpFile(file.toFile());
+			DataPumpTable<MasterTableRow> table = dumpFile.masterTable();
+			int column = table.get().indexOf("XML_CLOB");
+			int guid = table.get().indexOf("GUID");
+
+			int count = 0;
+			int raws = 0;
+			RowCursor cursor = table.cursor();
+			while (cursor.next()) {
+				if (cursor.isNull(column)) {
+					assertNull(cursor.getString(column));
+				} else {
+					Clob clob = cursor.getClob(column);
+					String value = cursor.getString(column);
+					assertTrue(value.startsWith("<?xml"));
+					assertEquals(clob.length(), value.length());
+					assertEquals(clob.getSubString(1, (int) clob.length()), value);
+					count++;
+				}
+				if (!cursor.isNull(guid)) {
+					try {
+						cursor.getString(guid);
+						fail("GUID is a RAW column.");
+					} catch (IllegalArgumentException e) {
+						raws++;
+					}
+				}
+			}
+			assertTrue(count > 0);
+			assertTrue(raws > 0);
+		}
+	}
+
+	/**
+	 * Test that LOBs past the threshold or the budget of a store are spilled to disk
+	 * and read back with the same bytes as LOBs kept on the heap, and that only the
+	 * LOBs before a mark are released from the budget.
+	 * @throws Exception
+	 */
+	public void testScottLobStore() throws Exception {
+		ClassLoader cl = Thread.currentThread().getContextClassLoader();
+		try (TemporaryFile file = new TemporaryFile(cl.getResourceAsStream("scott.dmp"));
+			LobStore lobs = new LobStore(10000, 10000);) {
+			DataPumpFile dumpFile = new DataPumpFile(file.toFile());
+			DataPumpTable<MasterTableRow> table = dumpFile.masterTable();
+
+			List<MasterTableRow> expected = table.rows().collect(Collectors.toList());
+			List<MasterTableRow> actual = table.rows(lobs).collect(Collectors.toList());
+			assertEquals(expected.size(), actual.size());
+			for (int i = 0; i < expected.size(); i++) {
+				String xml = expected.get(i).xmlString();
+				assertEquals(xml, actual.get(i).xmlString());
+				assertEquals(expected.get(i).targetXMLString(), actual.get(i).targetXMLString());
+				if (xml != null) {
+					assertTrue(Arrays.equals(
+						toArray(expected.get(i).xmlInputStream()),
+						toArray(actual.get(i).xmlInputStream())));
+				}
+			}
+			long length = 0;
+			RowCursor cursor = table.cursor();
+			while (cursor.next()) {
+				for (int column = 0; column < table.get().columns().size(); column++) {
+					if (table.get().columns().get(column).isLob() && !cursor.isNull(column)) {
+						length += cursor.getBytes(column).length;
+					}
+				}
+			}
+			assertTrue(lobs.held() > 0 && lobs.held() <= 10000);
+			assertTrue(lobs.spilled() > 0);
+			assertEquals(length, lobs.held() + lobs.spilled());
+
+			// Releasing a mark frees only the LOBs kept on the heap before it.
+			long first = lobs.mark();
+			lobs.release(first);
+			assertEquals(0L, lobs.held());
+			assertEquals(expected.size(), table.rows(lobs).count());
+			long second = lobs.mark();
+			long held = lobs.held();
+			assertTrue(held > 0);
+			lobs.release(first);
+			assertEquals(held, lobs.held());
+			lobs.release(second);
+			assertEquals(0L, lobs.held());
+			try {
+				lobs.release(second + 1);
+				fail("Nothing was kept past the last mark.");
+			} catch (IllegalArgumentException e) {
+				// Expected.
+			}
+		}
+	}
+
+	private static byte[] toArray(InputStream stream) throws IOException {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		byte[] buffer = new byte[1000];
+		for (int n; (n = stream.read(buffer)) >= 0;) {
+			bytes.write(buffer, 0, n);
+		}
+		return bytes.toByteArray();
+	}
+
+	/**
+	 * Test that a table's saved index is found again by the dump's GUID and the
+	 * table's offset, and that cursors and split rows started from it read the same
+	 * rows as a scan from the start.
+	 * @throws Exception
+	 */
+	public void testScottRowIndex() throws Exception {
+		ClassLoader cl = Thread.currentThread().getContextClassLoader();
+		File directory = Files.createTempDirectory("index").toFile();
+		try (TemporaryFile file = new TemporaryFile(cl.getResourceAsStream("scott.dmp"));) {
+			DataPumpFile dumpFile = new DataPumpFile(file.toFile());
+			List<String> expected = dumpFile.tableWithName("EMP").rows()
+				.map(TableRow::toString)
+				.collect(Collectors.toList());
+
+			DataPumpTable<TableRow> table = dumpFile.tableWithName("EMP").indexed(directory, 3);
+			File[] files = directory.listFiles();
+			assertEquals(1, files.length);
+			String guid = files[0].getName().split("-")[0];
+			assertEquals(guid + "-" + 19 * 4096 + ".idx", files[0].getName());
+			Optional<RowIndex> index = RowIndex.load(files[0], guid, 19 * 4096, 3);
+			assertEquals(expected.size(), index.get().rows());
+			assertEquals(5, index.get().size());
+			assertFalse(RowIndex.load(files[0], guid, 17 * 4096, 3).isPresent());
+			assertFalse(RowIndex.load(files[0], guid, 19 * 4096, 4).isPresent());
+			long modified = files[0].lastModified();
+			dumpFile.tableWithName("EMP").indexed(directory, 3);
+			assertEquals(modified, files[0].lastModified());
+
+			// A truncated index is built and saved again.
+			long length = files[0].length();
+			try (RandomAccessFile truncated = new RandomAccessFile(files[0], "rw")) {
+				truncated.setLength(length - 2);
+			}
+			assertFalse(RowIndex.load(files[0], guid, 19 * 4096, 3).isPresent());
+			dumpFile.tableWithName("EMP").indexed(directory, 3);
+			assertEquals(length, files[0].length());
+			assertEquals(1, directory.listFiles().length);
+
+			for (int row = 0; row < expected.size(); row++) {
+				RowCursor cursor = table.cursor(row);
+				assertTrue(cursor.next());
+				assertEquals(expected.get(row).split(",")[1], cursor.getString(1));
+			}
+			assertFalse(table.cursor(expected.size()).next());
+
+			Spliterator<TableRow> spliterator = table.rows().spliterator();
+			assertEquals(expected.size(), spliterator.estimateSize());
+			Spliterator<TableRow> prefix = spliterator.trySplit();
+			assertNotNull(prefix);
+			List<String> actual = new ArrayList<>();
+			prefix.forEachRemaining(i -> actual.add(i.toString()));
+			spliterator.forEachRemaining(i -> actual.add(i.toString()));
+			assertEquals(expected, actual);
+		} finally {
+			Arrays.stream(directory.listFiles()).forEach(File::delete);
+			directory.delete();
+		}
+	}
+
+	/**
+	 * Test that a page of rows passed over from the start of a table holds the same
+	 * rows as one skipped to in a stream of every row.
+	 * @throws Exception
+	 */
+	public void testScottOffsetRows() throws Exception {
+		ClassLoader cl = Thread.currentThread().getContextClassLoader();
+		try (TemporaryFile file = new TemporaryFile(cl.getResourceAsStream("scott.dmp"));) {
+			DataPumpFile dumpFile = new DataPumpFile(file.toFile());
+			for (String name : new String[] { "DEPT", "EMP" }) {
+				DataPumpTable<TableRow> table = dumpFile.tableWithName(name);
+				for (int offset = 0; offset <= 15; offset++) {
+					List<String> expected = table.rows().skip(offset).limit(3)
+						.map(TableRow::toString)
+						.collect(Collectors.toList());
+					assertEquals(expected, table.rows(offset, 3)
+						.map(TableRow::toString)
+						.collect(Collectors.toList()));
+				}
+				assertEquals(0L, table.rows(2, 0).count());
+			}
+
+			try {
+				dumpFile.tableWithName("EMP").rows(-1, 3);
+				fail("A page cannot start before the first row.");
+			} catch (IllegalArgumentException e) {
+				// Expected.
+			}
+		}
+	}
+
+	/**
+	 * Test that counting the rows of a table without reading them agrees with the
+	 * rows read and with the master table, and that a master table that disagrees
+	 * does not change the count.
+	 * @throws Exception
+	 */
+	public void testScottCount() throws Exception {
+		ClassLoader cl = Thread.currentThread().getContextClassLoader();
+		try (TemporaryFile file = new TemporaryFile(cl.getResourceAsStream("scott.dmp"));) {
+			DataPumpFile dumpFile = new DataPumpFile(file.toFile());
+			assertEquals(dumpFile.masterTable().rows().count(), dumpFile.masterTable().count());
+			assertEquals(
+				"DEPT=4, EMP=14, SALGRADE=5",
+				dumpFile.tables()
+					.map(i -> i.get().name() + "=" + i.count())
+					.sorted()
+					.collect(Collectors.joining(", ")));
+			assertTrue(dumpFile.tables().allMatch(i -> i.recordedRows().get() == i.count()));
+			assertFalse(dumpFile.masterTable().recordedRows().isPresent());
+
+			DataPumpTable<TableRow> table = dumpFile.tableWithName("EMP");
+			assertEquals(14L, table.indexed(table.buildIndex(4)).count());
+
+			// A master table that disagrees with the rows is reported, not trusted.
+			long offset = dumpFile.tableWithName("DEPT").iterator().checkpoint().tableOffset();
+			try (Reader.PositionalFileReader reader = new Reader.PositionalFileReader(file.toFile())) {
+				DataPumpTable<TableRow> dept = new DataPumpTable<>(
+					reader, offset, TableRow::new, table.masterRow().get());
+				assertEquals(4L, dept.count());
+				assertEquals(Long.valueOf(14L), dept.recordedRows().get());
+			}
+		}
+	}
+
+	/**
+	 * Test that an iterator started from a serialized checkpoint, on a table opened
+	 * again at its offset, returns the rows that follow the checkpoint.
+	 * @throws Exception
+	 */
+	public void testScottCheckpoint() throws Exception {
+		ClassLoader cl = Thread.currentThread().getContextClassLoader();
+		try (TemporaryFile file = new TemporaryFile(cl.getResourceAsStream("scott.dmp"));
+			Reader.PositionalFileReader reader = new Reader.PositionalFileReader(file.toFile());) {
+			DataPumpFile dumpFile = new DataPumpFile(file.toFile());
+			List<String> expected = dumpFile.tableWithName("EMP").rows()
+				.map(TableRow::toString)
+				.collect(Collectors.toList());
+			for (int row = 0; row <= expected.size(); row++) {
+				ResumableIterator<TableRow> iterator = dumpFile.tableWithName("EMP").iterator();
+				for (int i = 0; i < row; i++) {
+					iterator.next();
+				}
+				Checkpoint checkpoint = copy(iterator.checkpoint());
+				assertEquals(row, checkpoint.rows());
+				assertEquals(19 * 4096, checkpoint.tableOffset());
+
+				long offset = checkpoint.tableOffset();
+				DataPumpTable<TableRow> table = new DataPumpTable<>(reader, offset, TableRow::new);
+				ResumableIterator<TableRow> resumed = table.iterator(checkpoint);
+				List<String> actual = new ArrayList<>();
+				resumed.forEachRemaining(i -> actual.add(i.toString()));
+				assertEquals(expected.subList(row, expected.size()), actual);
+				assertEquals(expected.size(), resumed.checkpoint().rows());
+				try {
+					resumed.next();
+					fail("There are no more rows.");
+				} catch (NoSuchElementException e) {
+					// Expected.
+				}
+				assertEquals(expected.size(), resumed.checkpoint().rows());
+			}
+
+			DataPumpTable<MasterTableRow> master = dumpFile.masterTable();
+			List<String> xml = master.rows().map(MasterTableRow::xmlString).collect(Collectors.toList());
+			ResumableIterator<MasterTableRow> iterator = master.iterator();
+			for (int i = 0; i < 600; i++) {
+				iterator.next();
+			}
+			List<String> actual = new ArrayList<>();
+			master.iterator(copy(iterator.checkpoint())).forEachRemaining(i -> actual.add(i.xmlString()));
+			assertEquals(xml.subList(600, xml.size()), actual);
+
+			try {
+				master.iterator(dumpFile.tableWithName("EMP").iterator().checkpoint());
+				fail("The checkpoint is for another table.");
+			} catch (IllegalArgumentException e) {
+				// Expected.
+			}
+
+			// A copy of the dump with another GUID has its tables at the same offsets.
+			byte[] bytes = Files.readAllBytes(file.toFile().toPath());
+			bytes[2 + 11 + 2] ^= 0xff;
+			File other = File.createTempFile("other", ".dmp");
+			try (Reader.PositionalFileReader otherReader = new Reader.PositionalFileReader(
+				Files.write(other.toPath(), bytes).toFile())) {
+				Checkpoint checkpoint = dumpFile.tableWithName("EMP").iterator().checkpoint();
+				new DataPumpTable<>(otherReader, 19 * 4096, TableRow::new).iterator(checkpoint);
+				fail("The checkpoint is for another dump.");
+			} catch (IllegalArgumentException e) {
+				assertTrue(e.getMessage().startsWith("The checkpoint is for the dump"));
+			} finally {
+				other.delete();
+			}
+		}
+	}
+
+	private static Checkpoint copy(Checkpoint checkpoint) throws Exception {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+			out.writeObject(checkpoint);
+		}
+		try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(bytes.toByteArray()))) {
+			return (Checkpoint) in.readObject();
+		}
+	}
+
+	/**
+	 * Test that tables can be read into row types supplied by the caller.
+	 * @throws Exception
+	 */
+	public void testScottRowFactory() throws Exception {
+		ClassLoader cl = Thread.currentThread().getContextClassLoader();
+		try (TemporaryFile file = new TemporaryFile(cl.getResourceAsStream("scott.dmp"));
+			Reader.PositionalFileReader reader = new Reader.PositionalFileReader(file.toFile());) {
+
+			// The DEPT table data starts at block 17.
+			DataPumpTable<DepartmentRow> table = new DataPumpTable<>(reader, 17 * 4096, DepartmentRow::new);
+			assertEquals(
+				"NEW YORK, DALLAS, CHICAGO, BOSTON",
+				table.rows()
+					.map(DepartmentRow::location)
+					.collect(Collectors.joining(", ")));
+		}
+	}
+
+	public static class DepartmentRow extends TableRow {
+		public DepartmentRow(Object[] row, Table tableDefinition) {
+			super(row, tableDefinition);
+		}
+
+		public String location() {
+			return asString("LOC");
+		}
+	}
 }
@@ -0,0 +1,41 @@
+package org.backstamp.datapump.row;
+
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+
+import org.backstamp.datapump.row.ColumnVector.DecimalVector;
+
+import junit.framework.TestCase;
+
+public class ColumnVectorTest extends TestCase {
+
+	/**
+	 * Test that a decimal vector keeps fractions exactly, as unscaled longs where
+	 * they fit and as BigDecimals where they do not.
+	 */
+	public void testDecimalsWithFractions() {
+		DecimalVector vector = new DecimalVector(6);
+		vector.add(ByteBuffer.wrap(new byte[] { (byte) 0xc1, 0x0d, 0x23 }));
+		vector.add(ByteBuffer.wrap(new byte[] { 0x3e, 0x59, 0x43, 0x66 }));
+		vector.add(ByteBuffer.wrap(new byte[] { (byte) 0xc0, 0x33 }));
+		vector.add(null);
+		vector.add(ByteBuffer.wrap(new byte[] { (byte) 0xc4, 0x02, 0x18, 0x2e, 0x44, 0x5a }));
+		vector.add(ByteBuffer.wrap(new byte[] { (byte) 0xcb, 0x02 }));
+		assertEquals(6, vector.size());
+
+		assertEquals(1234L, vector.unscaled()[0]);
+		assertEquals(2, vector.scales()[0]);
+		assertEquals(new BigDecimal("12.34"), vector.get(0));
+		assertEquals(new BigDecimal("-12.34"), vector.get(1));
+		assertEquals(5L, vector.unscaled()[2]);
+		assertEquals(1, vector.scales()[2]);
+		assertEquals(new BigDecimal("0.5"), vector.get(2));
+		assertTrue(vector.isNull(3));
+		assertEquals(BigDecimal.ZERO, vector.get(3));
+		assertEquals(new BigDecimal("1234567.89"), vector.get(4));
+
+		assertFalse(vector.isWide(4));
+		assertTrue(vector.isWide(5));
+		assertEquals(new BigDecimal("100000000000000000000"), vector.get(5));
+	}
+}
@@ -1,14 +1,24 @@
 package org.backstamp.datapump.sql;
 
+import java.nio.charset.StandardCharsets;
 import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Statement;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 
 import org.backstamp.datapump.DataPumpFile;
 import org.backstamp.datapump.io.TemporaryFile;
+import org.backstamp.datapump.row.Lob;
+import org.backstamp.datapump.row.TableRow;
+import org.backstamp.datapump.table.ColumnDataType;
+import org.backstamp.datapump.table.ColumnDataType.DefaultDataType;
+import org.backstamp.datapump.table.ColumnDefinition;
+import org.backstamp.datapump.table.TableDefinition.Table;
 
 import junit.framework.TestCase;
 
@@ -51,4 +61,33 @@ public class DataPumpDataSourceTest extends TestCase {
 			}
 		}
 	}
+
+	/**
+	 * Test that CLOBs still in the file are bound as the characters they hold in
+	 * their column's character set rather than as bytes.
+	 * @throws Exception
+	 */
+	public void testClobs() throws Exception {
+		String text = "<?xml version=\"1.0\"?><NOTE>Caf\u00e9</NOTE>";
+		Table table = new Table("NOTES", Arrays.asList(
+			new ColumnDefinition.NumberColumn("ID", ColumnDataType.NUMBER),
+			new ColumnDefinition.ClobColumn("BODY", new DefaultDataType<byte[]>("clob", byte[].class),
+				StandardCharsets.UTF_16BE)));
+		TableRow row = new TableRow(new Object[] {
+			1L,
+			new Lob.Bytes(text.getBytes(StandardCharsets.UTF_16BE)) }, table);
+
+		try (Connection connection = DriverManager.getConnection("jdbc:h2:mem:clobs");
+			Statement statement = connection.createStatement();) {
+			statement.execute(table.toSQL());
+			try (PreparedStatement insert = connection.prepareStatement(table.toSQLInsertSyntax())) {
+				row.populateStatement(insert);
+				insert.executeUpdate();
+			}
+			try (ResultSet rs = statement.executeQuery("SELECT body FROM notes")) {
+				assertTrue(rs.next());
+				assertEquals(text, rs.getString(1));
+			}
+		}
+	}
 }
@@ -1,9 +1,24 @@
 package org.backstamp.datapump.table;
 
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.Arrays;
+import java.util.Calendar;
 import java.util.Date;
+import java.util.TimeZone;
 
+import org.backstamp.datapump.row.FieldPredicate;
 import org.backstamp.datapump.table.ColumnDefinition.NumberColumn;
+import org.backstamp.datapump.table.ColumnDefinition.NumericBytes;
+import org.backstamp.datapump.table.ColumnDefinition.RawColumn;
 import org.backstamp.datapump.table.ColumnDefinition.StringColumn;
+import org.backstamp.datapump.table.ColumnDefinition.StringDecoder;
+import org.backstamp.datapump.table.ColumnDefinition.TimestampBytes;
 import org.backstamp.datapump.table.ColumnDefinition.TimestampColumn;
 
 import junit.framework.TestCase;
@@ -12,22 +27,99 @@ public class ColumnTest extends TestCase {
 
 	public void testDecodeWithNumbers() {
 		NumberColumn column = new ColumnDefinition.NumberColumn("ID", ColumnDataType.NUMBER);
-		assertTrue(0L == column.decode(new byte[] {
+		assertEquals(0L, column.decode(new byte[] {
 				(byte) 0x80 }));
-		assertTrue(100L == column.decode(new byte[] {
+		assertEquals(100L, column.decode(new byte[] {
 				(byte) 0xc2, 0x02 }));
-		assertTrue(101L == column.decode(new byte[] {
+		assertEquals(101L, column.decode(new byte[] {
 				(byte) 0xc2, 0x02, 0x02 }));
-		assertTrue(867L == column.decode(new byte[] {
+		assertEquals(867L, column.decode(new byte[] {
 				(byte) 0xc2, 0x09, 0x44 }));
 	}
 
+	/**
+	 * Test that fractions and numbers too large for a long are decoded exactly, and
+	 * truncated as with Number.longValue() when decoded as a long.
+	 */
+	public void testDecodeWithDecimals() {
+		NumberColumn column = new ColumnDefinition.NumberColumn("AMOUNT", ColumnDataType.NUMBER);
+		assertEquals(new BigDecimal("12.34"), column.decode(new byte[] {
+				(byte) 0xc1, 0x0d, 0x23 }));
+		assertEquals(new BigDecimal("-12.34"), column.decode(new byte[] {
+				0x3e, 0x59, 0x43, 0x66 }));
+		assertEquals(new BigDecimal("0.5"), column.decode(new byte[] {
+				(byte) 0xc0, 0x33 }));
+		assertEquals(new BigDecimal("100000000000000000000"), column.decode(new byte[] {
+				(byte) 0xcb, 0x02 }));
+
+		assertEquals(12L, new NumericBytes(new byte[] {
+				(byte) 0xc1, 0x0d, 0x23 }).decode());
+		assertEquals(-12L, new NumericBytes(new byte[] {
+				0x3e, 0x59, 0x43, 0x66 }).decode());
+		assertEquals(0L, new NumericBytes(new byte[] {
+				(byte) 0xc0, 0x33 }).decode());
+		assertEquals(1000000000000000000L, new NumericBytes(new byte[] {
+				(byte) 0xca, 0x02 }).decode());
+		assertEquals(new BigDecimal("1E+20").longValue(), new NumericBytes(new byte[] {
+				(byte) 0xcb, 0x02 }).decode());
+	}
+
 	public void testDecodeWithTimestamps() {
 		TimestampColumn column = new ColumnDefinition.TimestampColumn("TSTAMP", null);
 		assertEquals(new Date(1456108080000L), column.decode(new byte[] {
 				0x78, 0x74, 0x02, 0x15, 0x16, 0x1d, 0x01 }));
 	}
 
+	/**
+	 * Test that TIMESTAMP values carry their fractional seconds.
+	 */
+	public void testDecodeWithFractionalSeconds() {
+		TimestampBytes timestamp = new TimestampBytes(new byte[] {
+				0x78, 0x74, 0x02, 0x15, 0x16, 0x1d, 0x01, 0x1d, (byte) 0xcd, 0x65, 0x00 });
+		assertEquals(LocalDateTime.of(2016, 2, 21, 21, 28, 0, 500000000), timestamp.decodeLocalDateTime());
+		assertEquals(
+			LocalDateTime.of(2016, 2, 21, 21, 28, 0, 500000000).toInstant(ZoneOffset.UTC).toEpochMilli(),
+			timestamp.decodeLocalMillis());
+		assertEquals(new Date(1456108080500L), timestamp.decode(TimeZone.getTimeZone("America/New_York")));
+		assertEquals(new Date(1456090080500L), timestamp.decode(TimeZone.getTimeZone("UTC")));
+		assertEquals(Date.from(timestamp.decodeLocalDateTime().atZone(ZoneId.systemDefault()).toInstant()),
+			timestamp.decode());
+	}
+
+	/**
+	 * Test that dates decoded without a calendar match those decoded with one,
+	 * across leap days, centuries and the hours when clocks change.
+	 */
+	public void testDecodeWithoutCalendar() {
+		Calendar calendar = Calendar.getInstance();
+		calendar.clear();
+		calendar.set(1899, 11, 31, 23, 59, 59);
+		while (calendar.get(Calendar.YEAR) < 2101) {
+			byte[] encoding = TimestampBytes.encode(calendar.getTime());
+			assertEquals(decodeWithCalendar(encoding), new TimestampBytes(encoding).decode());
+			calendar.add(Calendar.HOUR_OF_DAY, 173);
+		}
+
+		// The hours skipped and repeated when clocks change in New York.
+		for (byte[] encoding : new byte[][] {
+				{ 0x78, 0x74, 0x03, 0x0d, 0x03, 0x1f, 0x01 },
+				{ 0x78, 0x74, 0x0b, 0x06, 0x02, 0x1f, 0x01 },
+				{ 0x77, (byte) 0x85, 0x09, 0x18, 0x02, 0x3c, 0x3c } }) {
+			assertEquals(decodeWithCalendar(encoding), new TimestampBytes(encoding).decode());
+		}
+	}
+
+	private static Date decodeWithCalendar(byte[] encoding) {
+		Calendar calendar = Calendar.getInstance();
+		calendar.clear();
+		int year = (encoding[0] - 100) * 100 + Byte.toUnsignedInt(encoding[1]) - 100;
+		calendar.set(year, encoding[2] - 1, encoding[3]);
+		calendar.set(Calendar.HOUR_OF_DAY, encoding[4] - 1);
+		calendar.set(Calendar.MINUTE, encoding[5] - 1);
+		calendar.set(Calendar.SECOND, encoding[6] - 1);
+		return calendar.getTime();
+	}
+
 	public void testDecodeWithStrings() {
 		StringColumn column = new ColumnDefinition.StringColumn("DESCRIPTION", ColumnDataType.VARCHAR2);
 		assertEquals(
@@ -36,4 +128,126 @@ public class ColumnTest extends TestCase {
 					0x45, 0x6d, 0x70, 0x6c, 0x6f, 0x79, 0x65, 0x65, 0x20, 0x77, 0x6f, 0x72, 0x6b,
 					0x73, 0x20, 0x66, 0x72, 0x6f, 0x6d, 0x20, 0x68, 0x6f, 0x6d, 0x65 }));
 	}
+
+	/**
+	 * Test that strings are decoded in their column's character set, with or without
+	 * a reusable decoder.
+	 */
+	public void testDecodeWithCharsets() {
+		byte[] euro = { (byte) 0x80, 0x20, 0x35 };
+		Charset windows1252 = Charset.forName("windows-1252");
+		StringColumn windows = new StringColumn("PRICE", ColumnDataType.VARCHAR2, windows1252);
+		assertEquals("\u20ac 5", windows.decode(euro));
+		assertEquals("\u20ac 5", windows.decoder().decode(ByteBuffer.wrap(euro)));
+
+		StringColumn utf16 = new StringColumn("NAME", ColumnDataType.VARCHAR2, StandardCharsets.UTF_16BE);
+		byte[] name = "K\u00f6ln".getBytes(StandardCharsets.UTF_16BE);
+		assertEquals("K\u00f6ln", utf16.decode(name));
+		assertEquals("K\u00f6ln", utf16.decoder().decode(ByteBuffer.wrap(name)));
+
+		StringColumn utf8 = new StringColumn("NAME", ColumnDataType.VARCHAR2, StandardCharsets.UTF_8);
+		StringDecoder decoder = utf8.decoder();
+		for (String value : new String[] { "SMITH", "K\u00f6ln", "", "\ud83d\ude00 and more", "ALLEN" }) {
+			assertEquals(value, decoder.decode(ByteBuffer.wrap(value.getBytes(StandardCharsets.UTF_8))));
+		}
+	}
+
+	/**
+	 * Test that an interned decoder returns one String for equal values while still
+	 * decoding each value correctly, including ones too long to remember, and that
+	 * its dictionary is not shared with the column or its other decoders.
+	 */
+	public void testDecodeWithDictionary() {
+		StringColumn column = new StringColumn("JOB", ColumnDataType.VARCHAR2, StandardCharsets.UTF_8);
+		StringDecoder decoder = column.decoder().intern(2);
+		byte[] clerk = "CLERK".getBytes(StandardCharsets.UTF_8);
+		String first = decoder.decode(ByteBuffer.wrap(clerk.clone()));
+		assertSame(first, decoder.decode(ByteBuffer.wrap(clerk.clone())));
+		assertNotSame(first, column.decode(clerk.clone()));
+		assertNotSame(first, column.decoder().decode(ByteBuffer.wrap(clerk.clone())));
+
+		byte[] buffer = "xK\u00f6lnx".getBytes(StandardCharsets.UTF_8);
+		String cologne = decoder.decode(ByteBuffer.wrap(buffer, 1, buffer.length - 2));
+		assertEquals("K\u00f6ln", cologne);
+		assertSame(cologne, decoder.decode(ByteBuffer.wrap("K\u00f6ln".getBytes(StandardCharsets.UTF_8))));
+
+		for (String value : new String[] { "SALESMAN", "MANAGER", "ANALYST", "CLERK", "PRESIDENT" }) {
+			assertEquals(value, decoder.decode(ByteBuffer.wrap(value.getBytes(StandardCharsets.UTF_8))));
+		}
+		char[] characters = new char[ColumnDefinition.StringDictionary.MAXIMUM_LENGTH + 1];
+		Arrays.fill(characters, 'A');
+		String value = new String(characters);
+		byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+		assertEquals(value, decoder.decode(ByteBuffer.wrap(bytes)));
+		assertNotSame(decoder.decode(ByteBuffer.wrap(bytes)), decoder.decode(ByteBuffer.wrap(bytes)));
+
+		assertFalse(decoder.intern(0).isInterned());
+		assertNotSame(decoder.decode(ByteBuffer.wrap(clerk)), decoder.decode(ByteBuffer.wrap(clerk)));
+	}
+
+	/**
+	 * Test that values are decoded from a view into a larger buffer without reading
+	 * past its bounds.
+	 */
+	public void testDecodeWithSlices() {
+		ByteBuffer buffer = ByteBuffer.wrap(new byte[] {
+				0x7f, (byte) 0xc2, 0x09, 0x44, 0x78, 0x74, 0x02, 0x15, 0x16, 0x1d, 0x01,
+				0x45, 0x6d, 0x70 });
+
+		NumberColumn number = new ColumnDefinition.NumberColumn("ID", ColumnDataType.NUMBER);
+		buffer.limit(4).position(1);
+		assertEquals(867L, number.decode(buffer));
+		assertEquals(1, buffer.position());
+
+		TimestampColumn timestamp = new ColumnDefinition.TimestampColumn("TSTAMP", null);
+		buffer.limit(11).position(4);
+		LocalDateTime local = LocalDateTime.of(2016, 2, 21, 21, 28);
+		assertEquals(Date.from(local.atZone(ZoneId.systemDefault()).toInstant()), timestamp.decode(buffer));
+		assertEquals(local, new TimestampBytes(buffer).decodeLocalDateTime());
+		assertEquals(4, buffer.position());
+
+		StringColumn string = new ColumnDefinition.StringColumn("DESCRIPTION", ColumnDataType.VARCHAR2);
+		buffer.limit(14).position(11);
+		assertEquals("Emp", string.decode(buffer));
+		assertEquals("Emp", string.decode(buffer.asReadOnlyBuffer()));
+
+		RawColumn raw = new ColumnDefinition.RawColumn("CODE", null);
+		buffer.limit(3).position(1);
+		assertEquals(Arrays.toString(new byte[] {
+				(byte) 0xc2, 0x09 }), Arrays.toString(raw.decode(buffer)));
+		assertEquals(1, buffer.position());
+	}
+
+	/**
+	 * Test that whole numbers are encoded the way they are decoded and that their
+	 * encodings sort in the same order as the numbers.
+	 */
+	public void testEncodeWithNumbers() {
+		assertEquals(Arrays.toString(new byte[] {
+				(byte) 0xc2, 0x09, 0x44 }), Arrays.toString(NumericBytes.encode(867L)));
+		assertEquals(Arrays.toString(new byte[] {
+				0x3e, 0x60, 0x66 }), Arrays.toString(NumericBytes.encode(-5L)));
+
+		NumberColumn column = new ColumnDefinition.NumberColumn("ID", ColumnDataType.NUMBER);
+		long[] values = { Long.MIN_VALUE, -123456789L, -10100L, -10000L, -101L, -100L, -99L, -5L, -1L,
+			0L, 1L, 5L, 99L, 100L, 101L, 10000L, 10100L, 123456789L, Long.MAX_VALUE };
+		for (int i = 0; i < values.length; i++) {
+			byte[] encoding = NumericBytes.encode(values[i]);
+			assertEquals(values[i], column.decode(encoding));
+			assertEquals(values[i], new NumericBytes(encoding).decode());
+			if (i > 0) {
+				ByteBuffer previous = ByteBuffer.wrap(NumericBytes.encode(values[i - 1]));
+				assertTrue(FieldPredicate.compare(previous, encoding) < 0);
+			}
+		}
+	}
+
+	public void testEncodeWithTimestamps() {
+		TimestampColumn column = new ColumnDefinition.TimestampColumn("TSTAMP", null);
+		Date date = new Date(1456108080000L);
+		assertEquals(date, column.decode(TimestampBytes.encode(date)));
+		assertTrue(FieldPredicate.compare(
+			ByteBuffer.wrap(TimestampBytes.encode(date)),
+			TimestampBytes.encode(new Date(date.getTime() + 1000L))) < 0);
+	}
 }
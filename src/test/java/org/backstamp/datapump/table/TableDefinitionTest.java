@@ -0,0 +1,51 @@
+package org.backstamp.datapump.table;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.backstamp.datapump.table.TableDefinition.Table;
+import org.backstamp.datapump.table.TableDefinition.Table.Plan;
+
+import junit.framework.TestCase;
+
+public class TableDefinitionTest extends TestCase {
+
+	private final Table table = new Table("DEPT", Arrays.asList(
+		new ColumnDefinition.NumberColumn("DEPTNO", ColumnDataType.NUMBER),
+		new ColumnDefinition.StringColumn("DNAME", ColumnDataType.VARCHAR2),
+		new ColumnDefinition.StringColumn("LOC", ColumnDataType.VARCHAR2)));
+
+	public void testIndexOf() {
+		assertEquals(0, table.indexOf("DEPTNO"));
+		assertEquals(2, table.indexOf("LOC"));
+		assertEquals(2, table.indexOf("loc"));
+		assertEquals(-1, table.indexOf("EMPNO"));
+		assertEquals(2, table.requireIndexOf("loc"));
+		try {
+			table.requireIndexOf("EMPNO");
+			fail("DEPT has no column EMPNO.");
+		} catch (IllegalArgumentException e) {
+			assertEquals("The table DEPT has no column EMPNO.", e.getMessage());
+		}
+	}
+
+	/**
+	 * Test that a plan is built once per table and then shared, and that plans of
+	 * the same type are kept apart.
+	 */
+	public void testPlan() {
+		AtomicInteger builds = new AtomicInteger();
+		Plan<int[]> name = new Plan<>(t -> {
+			builds.incrementAndGet();
+			return new int[] { t.indexOf("DNAME") };
+		});
+		Plan<int[]> location = new Plan<>(t -> new int[] { t.indexOf("LOC") });
+		int[] a = table.plan(name);
+		int[] b = table.plan(name);
+		assertSame(a, b);
+		assertEquals(1, a[0]);
+		assertEquals(1, builds.get());
+		assertEquals(2, table.plan(location)[0]);
+		assertSame(a, table.plan(name));
+	}
+}
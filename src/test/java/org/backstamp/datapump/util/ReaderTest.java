@@ -0,0 +1,131 @@
+package org.backstamp.datapump.util;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.util.Arrays;
+
+import org.backstamp.datapump.util.Reader.BufferedFileReader;
+import org.backstamp.datapump.util.Reader.MappedFileReader;
+import org.backstamp.datapump.util.Reader.PositionalFileReader;
+import org.backstamp.datapump.util.Reader.RandomAccessFileReader;
+
+import junit.framework.TestCase;
+
+public class ReaderTest extends TestCase {
+
+	private File file;
+
+	@Override
+	protected void setUp() throws Exception {
+		byte[] bytes = new byte[64];
+		for (int i = 0; i < bytes.length; i++) {
+			bytes[i] = (byte) (0xf0 - i);
+		}
+		file = File.createTempFile("reader", null);
+		try (FileOutputStream out = new FileOutputStream(file)) {
+			out.write(bytes);
+		}
+	}
+
+	@Override
+	protected void tearDown() throws Exception {
+		file.delete();
+	}
+
+	/**
+	 * Test that a memory-mapped reader returns the same values as a random-access
+	 * reader, including values that straddle two mapped windows.
+	 * @throws Exception
+	 */
+	public void testMappedFileReader() throws Exception {
+		try (RandomAccessFileReader expected = new RandomAccessFileReader(file);
+			MappedFileReader actual = new MappedFileReader(file, 5);) {
+			assertSameValues(expected, actual);
+		}
+	}
+
+	/**
+	 * Test that a block-aligned buffered reader returns the same values as a random-access
+	 * reader, including values that span a refill and reads larger than its buffer.
+	 * @throws Exception
+	 */
+	public void testBufferedFileReader() throws Exception {
+		try (RandomAccessFileReader expected = new RandomAccessFileReader(file);
+			BufferedFileReader actual = new BufferedFileReader(file, 16, 2);) {
+			assertSameValues(expected, actual);
+		}
+		try (RandomAccessFileReader expected = new RandomAccessFileReader(file);
+			BufferedFileReader actual = new BufferedFileReader(file, 16, 2);) {
+			assertEquals(Arrays.toString(expected.read(48)), Arrays.toString(actual.read(48)));
+			assertEquals(Arrays.toString(expected.read(32)), Arrays.toString(actual.read(32)));
+		}
+	}
+
+	/**
+	 * Test that cursors over a positional reader return the same values as a random-access
+	 * reader and do not disturb one another's position.
+	 * @throws Exception
+	 */
+	public void testPositionalFileReader() throws Exception {
+		try (RandomAccessFileReader expected = new RandomAccessFileReader(file);
+			PositionalFileReader actual = new PositionalFileReader(file);) {
+			assertSameValues(expected, actual);
+
+			Reader a = actual.cursor();
+			Reader b = actual.cursor();
+			a.seek(8);
+			b.seek(40);
+			expected.seek(8);
+			assertEquals(expected.read8(), a.read8());
+			expected.seek(40);
+			assertEquals(expected.read8(), b.read8());
+			expected.seek(16);
+			assertEquals(expected.read8(), a.read8());
+		}
+	}
+
+	/**
+	 * Test that cursors over a random-access reader keep positions of their own rather
+	 * than sharing its file pointer.
+	 * @throws Exception
+	 */
+	public void testRandomAccessFileReaderCursors() throws Exception {
+		try (RandomAccessFileReader expected = new RandomAccessFileReader(file);
+			RandomAccessFileReader actual = new RandomAccessFileReader(file);) {
+			Reader a = actual.cursor();
+			Reader b = actual.cursor();
+			assertNotSame(a, b);
+			assertSameValues(expected, a);
+
+			actual.seek(4);
+			a.seek(8);
+			b.seek(40);
+			expected.seek(8);
+			assertEquals(expected.read8(), a.read8());
+			expected.seek(40);
+			assertEquals(expected.read8(), b.read8());
+			expected.seek(16);
+			assertEquals(expected.read8(), a.read8());
+			assertEquals(4L, actual.position());
+		}
+	}
+
+	static void assertSameValues(Reader expected, Reader actual) {
+		assertEquals(expected.read1(), actual.read1());
+		assertEquals(expected.read2(), actual.read2());
+		assertEquals(expected.read4(), actual.read4());
+		assertEquals(expected.read8(), actual.read8());
+		assertEquals(expected.read8(), actual.read8());
+
+		expected.skip(3);
+		actual.skip(3);
+		assertEquals(Arrays.toString(expected.read(13)), Arrays.toString(actual.read(13)));
+
+		expected.seek(1);
+		actual.seek(1);
+		assertEquals(expected.read4(), actual.read4());
+		assertEquals(expected.slice(6), actual.slice(6));
+		assertEquals(expected.read2(), actual.read2());
+		assertEquals(Arrays.toString(expected.read(40, 24)), Arrays.toString(actual.read(40, 24)));
+	}
+}
@@ -1,7 +1,10 @@
 package org.backstamp.datapump.xml;
 
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
 import java.util.Arrays;
 import java.util.Optional;
 import java.util.stream.Collectors;
@@ -9,6 +12,7 @@ import java.util.stream.Collectors;
 import javax.xml.parsers.ParserConfigurationException;
 import javax.xml.stream.XMLStreamException;
 
+import org.backstamp.datapump.table.ColumnDefinition.StringColumn;
 import org.backstamp.datapump.table.TableDefinition.Table;
 import org.xml.sax.SAXException;
 
@@ -121,4 +125,25 @@ public class XMLStreamCursorTest extends TestCase {
 				columnNames);
 		});
 	}
+
+	/**
+	 * Test that columns without a character set of their own are decoded in the
+	 * database's character set rather than the platform's.
+	 */
+	public void testColumnCharsets() throws XMLStreamException {
+		String xml = "<ROWSET><ROW><STRMTABLE_T>"
+			+ "<CHARSET>WE8MSWIN1252</CHARSET><NCHARSET>AL16UTF16</NCHARSET><NAME>NOTES</NAME><COL_LIST>"
+			+ "<COL_LIST_ITEM><NAME>TITLE</NAME><TYPE_NUM>1</TYPE_NUM><LENGTH>10</LENGTH></COL_LIST_ITEM>"
+			+ "<COL_LIST_ITEM><NAME>NTITLE</NAME><TYPE_NUM>1</TYPE_NUM><LENGTH>10</LENGTH>"
+			+ "<CHARSETFORM>2</CHARSETFORM></COL_LIST_ITEM>"
+			+ "<COL_LIST_ITEM><NAME>BODY</NAME><TYPE_NUM>1</TYPE_NUM><LENGTH>10</LENGTH>"
+			+ "<CHARSETID>873</CHARSETID><CHARSETFORM>1</CHARSETFORM></COL_LIST_ITEM>"
+			+ "</COL_LIST></STRMTABLE_T></ROW></ROWSET>";
+		Table table = new XMLStreamCursor.DocumentCursor()
+			.apply(new ByteArrayInputStream(xml.getBytes(StandardCharsets.US_ASCII)))
+			.get();
+		assertEquals(Charset.forName("windows-1252"), ((StringColumn) table.columns().get(0)).charset());
+		assertEquals(StandardCharsets.UTF_16BE, ((StringColumn) table.columns().get(1)).charset());
+		assertEquals(StandardCharsets.UTF_8, ((StringColumn) table.columns().get(2)).charset());
+	}
 }